@@ -0,0 +1,63 @@
+package com.bedi.warcaby.benchmarks;
+
+import com.bedi.warcaby.Board;
+import com.bedi.warcaby.MoveType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private static final int POSITIONS = 64;
+
+    private final int[] moves = new int[Board.MAX_MOVES];
+    private final Board scratch = new Board();
+    private Board[] positions;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        positions = SearchBenchmark.positions(POSITIONS, new SplittableRandom(1));
+    }
+
+    private Board nextPosition() {
+        return positions[next++ & (POSITIONS - 1)];
+    }
+
+    @Benchmark
+    public int tryMoveAllSquares() {
+        Board board = nextPosition();
+        int legal = 0;
+        for (int from = 0; from < Board.SQUARES; from++) {
+            for (int to = 0; to < Board.SQUARES; to++) {
+                if (board.tryMove(from, to) != MoveType.NONE) {
+                    legal++;
+                }
+            }
+        }
+        return legal;
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        Board board = nextPosition();
+        return board.generateMoves(true, moves) + board.generateMoves(false, moves);
+    }
+
+    @Benchmark
+    public long makeMove() {
+        Board board = nextPosition();
+        int count = board.generateMoves(false, moves);
+        scratch.set(board);
+        if (count > 0) {
+            scratch.makeMove(moves[0]);
+        }
+        return scratch.getHash();
+    }
+}
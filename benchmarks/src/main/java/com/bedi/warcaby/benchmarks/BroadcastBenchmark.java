@@ -0,0 +1,79 @@
+package com.bedi.warcaby.benchmarks;
+
+import com.bedi.warcaby.Board;
+import com.bedi.warcaby.Broadcast;
+import com.bedi.warcaby.MoveType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+    @Param({"0", "1", "100", "1000"})
+    public int spectators;
+
+    @Param({"false", "true"})
+    public boolean lagging;
+
+    private Broadcast broadcast;
+    private boolean forward = true;
+
+    @Setup
+    public void setup() {
+        broadcast = new Broadcast(new Board(), 2, 0);
+        for (int i = 0; i < spectators; i++) {
+            broadcast.subscribe(new Spectator(i % 2 == 0, lagging));
+        }
+    }
+
+    @Benchmark
+    public int moved() {
+        if (forward) {
+            broadcast.moved(0, 5, 1, 4, MoveType.NORMAL);
+        } else {
+            broadcast.moved(1, 4, 0, 5, MoveType.NORMAL);
+        }
+        forward = !forward;
+        return broadcast.size();
+    }
+
+    private static final class Spectator implements Broadcast.Subscriber {
+        private final boolean binary;
+        private final boolean lagging;
+        private final byte[][] ring = new byte[64][];
+        private int offered = 0;
+
+        private Spectator(boolean binary, boolean lagging) {
+            this.binary = binary;
+            this.lagging = lagging;
+        }
+
+        @Override
+        public boolean isBinary() {
+            return binary;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public boolean offer(byte[] frame) {
+            if (lagging && offered > 0) {
+                return false;
+            }
+            ring[offered++ & (ring.length - 1)] = frame;
+            return true;
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.bedi.warcaby.benchmarks;
+
+import com.bedi.warcaby.BinaryCodec;
+import com.bedi.warcaby.Coder;
+import com.bedi.warcaby.MoveType;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    private final int[] move = new int[4];
+    private final ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.MAX_FRAME_LENGTH);
+    private final String message = "2 5 4 3";
+
+    @Benchmark
+    public String encodeText() {
+        return Coder.encode(2, 5, 4, 3, MoveType.KILL);
+    }
+
+    @Benchmark
+    public int[] decodeText() {
+        Coder.decode(message, move);
+        return move;
+    }
+
+    @Benchmark
+    public int encodeBinary() {
+        buffer.clear();
+        BinaryCodec.putResult(buffer, 2, 5, 4, 3, MoveType.KILL);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int decodeBinary() {
+        buffer.clear();
+        BinaryCodec.putMove(buffer, 2, 5, 4, 3);
+        int from = buffer.get(1) & 0xFF;
+        int to = buffer.get(2) & 0xFF;
+        return BinaryCodec.x(from) + BinaryCodec.y(from) + BinaryCodec.x(to) + BinaryCodec.y(to);
+    }
+}
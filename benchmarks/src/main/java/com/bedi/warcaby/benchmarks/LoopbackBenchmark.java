@@ -0,0 +1,62 @@
+package com.bedi.warcaby.benchmarks;
+
+import com.bedi.warcaby.Server;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopbackBenchmark {
+    private Server server;
+    private Socket gray;
+    private Socket white;
+    private BufferedReader whiteReader;
+    private BufferedWriter whiteWriter;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new Server(new ServerSocket(0), Thread::new);
+        Thread acceptor = new Thread(server::startServer);
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        int port = server.serverSocket().getLocalPort();
+        gray = connect(port);
+        white = connect(port);
+        whiteReader = new BufferedReader(new InputStreamReader(white.getInputStream()));
+        whiteWriter = new BufferedWriter(new OutputStreamWriter(white.getOutputStream()));
+        whiteReader.readLine();
+        whiteReader.readLine();
+    }
+
+    private static Socket connect(int port) throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.setTcpNoDelay(true);
+        socket.getOutputStream().write("wait\n".getBytes());
+        return socket;
+    }
+
+    @Benchmark
+    public String rejectedMoveRoundTrip() throws IOException {
+        whiteWriter.write("1 2 0 3");
+        whiteWriter.newLine();
+        whiteWriter.flush();
+        whiteReader.readLine();
+        return whiteReader.readLine();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        gray.close();
+        white.close();
+        server.closeServerSocket();
+    }
+}
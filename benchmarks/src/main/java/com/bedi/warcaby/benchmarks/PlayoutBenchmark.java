@@ -0,0 +1,39 @@
+package com.bedi.warcaby.benchmarks;
+
+import com.bedi.warcaby.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+    private static final int MAX_PLIES = 500;
+
+    private final int[] moves = new int[Board.MAX_MOVES];
+    private final Board board = new Board();
+    private final Board start = new Board();
+    private final SplittableRandom random = new SplittableRandom(1);
+
+    @Benchmark
+    public int randomGame() {
+        board.set(start);
+        boolean grayToMove = false;
+        int ply = 0;
+        while (ply < MAX_PLIES && board.grayPieces() > 0 && board.whitePieces() > 0) {
+            int count = board.generateMoves(grayToMove, moves);
+            if (count == 0) {
+                break;
+            }
+            board.makeMove(moves[random.nextInt(count)]);
+            grayToMove = !grayToMove;
+            ply++;
+        }
+        return ply;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bedi.warcaby.benchmarks;
+
+import com.bedi.warcaby.Board;
+import com.bedi.warcaby.Journal;
+import com.bedi.warcaby.Match;
+import com.bedi.warcaby.Recovery;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecoveryBenchmark {
+    @Param("10000")
+    public int matches;
+
+    @Param("40")
+    public int plies;
+
+    private Journal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        journal = new Journal(Files.createTempDirectory("journal"), 64 << 20, 10);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] moves = new int[Board.MAX_MOVES];
+        for (int i = 0; i < matches; i++) {
+            long id = journal.nextMatchId();
+            journal.started(id, 3, random.nextLong(), random.nextLong());
+
+            Board board = new Board();
+            boolean grayToMove = false;
+            for (int ply = 0; ply < plies && board.grayPieces() > 0 && board.whitePieces() > 0; ply++) {
+                int count = board.generateMoves(grayToMove, moves);
+                if (count == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(count)];
+                board.makeMove(move);
+                journal.moved(id, move);
+                grayToMove = !grayToMove;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Match> recover() {
+        return Recovery.recover(journal);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Path directory = journal.getDirectory();
+        journal.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
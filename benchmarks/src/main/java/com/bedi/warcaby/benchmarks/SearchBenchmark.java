@@ -0,0 +1,80 @@
+package com.bedi.warcaby.benchmarks;
+
+import com.bedi.warcaby.AiScheduler;
+import com.bedi.warcaby.Board;
+import com.bedi.warcaby.ParallelSearch;
+import com.bedi.warcaby.Search;
+import com.bedi.warcaby.TranspositionTable;
+
+import java.util.SplittableRandom;
+
+public class SearchBenchmark {
+    private static final int POSITIONS = 20;
+    private static final long UNLIMITED = 3_600_000;
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) {
+        boolean threads = args.length > 0 && args[0].equals("threads");
+        int depth = args.length > (threads ? 1 : 0) ? Integer.parseInt(args[threads ? 1 : 0]) : 9;
+        Board[] positions = positions(POSITIONS, new SplittableRandom(1));
+
+        run("warm-up", positions, depth - 2, new TranspositionTable(64));
+        if (threads) {
+            double base = 0;
+            for (int count : THREADS) {
+                double seconds = runParallel(positions, depth, count);
+                base = count == 1 ? seconds : base;
+                System.out.printf("%2d threads depth %d: %.2f s, speedup %.2fx%n", count, depth, seconds, base / seconds);
+            }
+            return;
+        }
+        run("no table", positions, depth, null);
+        run("table", positions, depth, new TranspositionTable(64));
+    }
+
+    private static double runParallel(Board[] positions, int depth, int threads) {
+        ParallelSearch search = new ParallelSearch(UNLIMITED, depth, threads, new TranspositionTable(64), new AiScheduler(threads));
+        long start = System.nanoTime();
+        for (Board position : positions) {
+            search.bestMove(position, false);
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    public static Board[] positions(int count, SplittableRandom random) {
+        Board[] positions = new Board[count];
+        int[] moves = new int[Board.MAX_MOVES];
+        for (int i = 0; i < count; i++) {
+            Board board = new Board();
+            int plies = 2 * (4 + random.nextInt(8));
+            for (int ply = 0; ply < plies; ply++) {
+                int moveCount = board.generateMoves(ply % 2 == 1, moves);
+                if (moveCount == 0) {
+                    break;
+                }
+                board.makeMove(moves[random.nextInt(moveCount)]);
+            }
+            positions[i] = board;
+        }
+        return positions;
+    }
+
+    private static void run(String name, Board[] positions, int depth, TranspositionTable table) {
+        Search search = new Search(UNLIMITED, depth, table);
+        long nodes = 0;
+        long probes = 0;
+        long hits = 0;
+        long start = System.nanoTime();
+        for (Board position : positions) {
+            search.bestMove(position, false);
+            nodes += search.getNodes();
+            probes += search.getProbes();
+            hits += search.getHits();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-8s depth %d: %d nodes in %.2f s, %.0f nodes/s, %.2f s/position, hit rate %.1f%%%n",
+                name, depth, nodes, seconds, nodes / seconds, seconds / positions.length, probes == 0 ? 0 : 100.0 * hits / probes);
+    }
+}
@@ -0,0 +1,60 @@
+package com.bedi.warcaby;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class AiScheduler {
+    private static AiScheduler shared;
+
+    private final Semaphore permits;
+    private final ExecutorService helpers;
+
+    public AiScheduler(int threads) {
+        permits = new Semaphore(threads);
+        helpers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ai-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized AiScheduler shared() {
+        if (shared == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            shared = new AiScheduler(Integer.getInteger("warcaby.ai.threads", Math.max(1, cores / 2)));
+        }
+        return shared;
+    }
+
+    public boolean acquire(long timeoutNanos) {
+        try {
+            return permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public int tryAcquire(int wanted) {
+        int granted = 0;
+        while (granted < wanted && permits.tryAcquire()) {
+            granted++;
+        }
+        return granted;
+    }
+
+    public void release(int count) {
+        permits.release(count);
+    }
+
+    public Future<?> submit(Runnable task) {
+        return helpers.submit(task);
+    }
+
+    public int available() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,93 @@
+package com.bedi.warcaby;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Backend {
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    private final InetSocketAddress address;
+    private final AtomicInteger placed = new AtomicInteger();
+    private volatile int matches = 0;
+    private volatile boolean up = false;
+
+    public Backend(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    public static Backend parse(String hostAndPort) {
+        String[] parts = hostAndPort.split(":");
+        return new Backend(new InetSocketAddress(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : Server.PORT));
+    }
+
+    public Socket connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(address, CONNECT_TIMEOUT);
+            SocketOptions.apply(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        return socket;
+    }
+
+    public String request(String handshake) {
+        try (Socket socket = connect()) {
+            socket.setSoTimeout(CONNECT_TIMEOUT);
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write((handshake + "\n").getBytes(StandardCharsets.US_ASCII));
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public boolean poll() {
+        String line = request("stats");
+        try {
+            if (line == null || !line.startsWith("matches ")) {
+                throw new IOException("Unexpected stats from " + address + ": " + line);
+            }
+            matches = Integer.parseInt(line.split(" ")[1]);
+            placed.set(0);
+            up = true;
+        } catch (IOException | NumberFormatException e) {
+            up = false;
+        }
+        return up;
+    }
+
+    public void placed() {
+        placed.incrementAndGet();
+    }
+
+    public int load() {
+        return matches + placed.get();
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Backend backend && backend.address.equals(address);
+    }
+
+    @Override
+    public int hashCode() {
+        return address.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return address.getHostString() + ":" + address.getPort();
+    }
+}
@@ -0,0 +1,82 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+public class BinaryChannel implements MatchChannel {
+    private final OutputStream outputStream;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.MAX_FRAME_LENGTH);
+    private final boolean sync;
+    private boolean pending = false;
+
+    public BinaryChannel(OutputStream outputStream, boolean sync) {
+        this.outputStream = outputStream;
+        this.sync = sync;
+    }
+
+    @Override
+    public void joined(int player) throws IOException {
+        BinaryCodec.putPlayer(buffer, player);
+        send();
+    }
+
+    @Override
+    public void ping() throws IOException {
+        BinaryCodec.putPing(buffer);
+        send();
+    }
+
+    @Override
+    public void moved(int fromX, int fromY, int newX, int newY, MoveType moveType, int sequence) throws IOException {
+        BinaryCodec.putResult(buffer, fromX, fromY, newX, newY, moveType);
+        if (sync) {
+            BinaryCodec.putSequence(buffer, sequence);
+        }
+        send();
+    }
+
+    @Override
+    public void ended(int winner) throws IOException {
+        BinaryCodec.putEnd(buffer, winner);
+        send();
+    }
+
+    @Override
+    public void session(long token) throws IOException {
+        BinaryCodec.putSession(buffer, token);
+        send();
+    }
+
+    @Override
+    public void clock(int player, long moveMillis, long player1Millis, long player2Millis) throws IOException {
+        BinaryCodec.putClock(buffer, player, moveMillis, player1Millis, player2Millis);
+        send();
+    }
+
+    @Override
+    public void snapshot(int gray, int white, int kings, int player, int moves) throws IOException {
+        if (sync) {
+            BinaryCodec.putSnapshot(buffer, gray, white, kings, player, moves);
+            send();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!pending) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        outputStream.flush();
+        ServerStats.written(startedAt);
+        pending = false;
+    }
+
+    private void send() throws IOException {
+        outputStream.write(buffer.array(), 0, buffer.position());
+        ServerStats.queued();
+        pending = true;
+        buffer.clear();
+    }
+}
@@ -0,0 +1,106 @@
+package com.bedi.warcaby;
+
+import java.nio.ByteBuffer;
+
+public class BinaryCodec {
+    public static final int PLAYER = 1;
+    public static final int PING = 2;
+    public static final int MOVE = 3;
+    public static final int NONE = 4;
+    public static final int NORMAL = 5;
+    public static final int KILL = 6;
+    public static final int END = 7;
+    public static final int SESSION = 8;
+    public static final int CLOCK = 9;
+    public static final int SNAPSHOT = 10;
+    public static final int SYNC = 11;
+
+    public static final int MAX_FRAME_LENGTH = 2 + 3 * Integer.BYTES + Short.BYTES;
+
+    private static final int OFF_BOARD = 0xFF;
+
+    public static int frameLength(int opcode) {
+        return switch (opcode) {
+            case PING, SYNC -> 1;
+            case PLAYER, END -> 2;
+            case MOVE, NONE, NORMAL -> 3;
+            case KILL -> 4;
+            case SESSION -> 1 + Long.BYTES;
+            case CLOCK -> 2 + 3 * Integer.BYTES;
+            case SNAPSHOT -> 2 + 3 * Integer.BYTES + Short.BYTES;
+            default -> -1;
+        };
+    }
+
+    public static int position(int x, int y) {
+        if (x < 0 || x >= Board.WIDTH || y < 0 || y >= Board.HEIGHT) {
+            return OFF_BOARD;
+        }
+        return y * Board.WIDTH + x;
+    }
+
+    public static int x(int position) {
+        return position == OFF_BOARD ? -1 : position % Board.WIDTH;
+    }
+
+    public static int y(int position) {
+        return position == OFF_BOARD ? -1 : position / Board.WIDTH;
+    }
+
+    public static MoveType moveType(int opcode) {
+        return switch (opcode) {
+            case NORMAL -> MoveType.NORMAL;
+            case KILL -> MoveType.KILL;
+            default -> MoveType.NONE;
+        };
+    }
+
+    public static void putPlayer(ByteBuffer buffer, int player) {
+        buffer.put((byte) PLAYER).put((byte) player);
+    }
+
+    public static void putPing(ByteBuffer buffer) {
+        buffer.put((byte) PING);
+    }
+
+    public static void putMove(ByteBuffer buffer, int fromX, int fromY, int newX, int newY) {
+        buffer.put((byte) MOVE).put((byte) position(fromX, fromY)).put((byte) position(newX, newY));
+    }
+
+    public static void putResult(ByteBuffer buffer, int fromX, int fromY, int newX, int newY, MoveType moveType) {
+        int opcode = switch (moveType) {
+            case NONE -> NONE;
+            case NORMAL -> NORMAL;
+            case KILL -> KILL;
+        };
+        buffer.put((byte) opcode).put((byte) position(fromX, fromY)).put((byte) position(newX, newY));
+        if (moveType == MoveType.KILL) {
+            buffer.put((byte) position((fromX + newX) / 2, (fromY + newY) / 2));
+        }
+    }
+
+    public static void putSequence(ByteBuffer buffer, int sequence) {
+        buffer.putShort((short) sequence);
+    }
+
+    public static void putEnd(ByteBuffer buffer, int winner) {
+        buffer.put((byte) END).put((byte) winner);
+    }
+
+    public static void putSession(ByteBuffer buffer, long token) {
+        buffer.put((byte) SESSION).putLong(token);
+    }
+
+    public static void putClock(ByteBuffer buffer, int player, long moveMillis, long player1Millis, long player2Millis) {
+        buffer.put((byte) CLOCK).put((byte) player)
+                .putInt((int) moveMillis).putInt((int) player1Millis).putInt((int) player2Millis);
+    }
+
+    public static void putSnapshot(ByteBuffer buffer, int gray, int white, int kings, int player, int moves) {
+        buffer.put((byte) SNAPSHOT).putInt(gray).putInt(white).putInt(kings).put((byte) player).putShort((short) moves);
+    }
+
+    public static void putSync(ByteBuffer buffer) {
+        buffer.put((byte) SYNC);
+    }
+}
@@ -0,0 +1,185 @@
+package com.bedi.warcaby;
+
+public class Board {
+    public static final int WIDTH = 8;
+    public static final int HEIGHT = 8;
+    public static final int SQUARES = 32;
+    public static final int MAX_MOVES = 48;
+
+    private static final int GRAY_START = 0x00000FFF;
+    private static final int WHITE_START = 0xFFF00000;
+
+    private int gray;
+    private int white;
+    private int kings;
+    private long hash;
+
+    public Board() {
+        this(GRAY_START, WHITE_START, 0);
+    }
+
+    public Board(int gray, int white, int kings) {
+        this.gray = gray;
+        this.white = white;
+        this.kings = kings;
+        this.hash = Zobrist.hash(gray, white, kings);
+    }
+
+    public Board(Board board) {
+        this(board.gray, board.white, board.kings);
+    }
+
+    public void set(Board board) {
+        gray = board.gray;
+        white = board.white;
+        kings = board.kings;
+        hash = board.hash;
+    }
+
+    public static int square(int x, int y) {
+        if (x < 0 || x >= WIDTH || y < 0 || y >= HEIGHT || (x + y) % 2 == 0) {
+            return -1;
+        }
+        return y * 4 + x / 2;
+    }
+
+    public static int squareX(int square) {
+        return (square & 3) * 2 + 1 - (squareY(square) & 1);
+    }
+
+    public static int squareY(int square) {
+        return square >> 2;
+    }
+
+    public int getGray() {
+        return gray;
+    }
+
+    public int getWhite() {
+        return white;
+    }
+
+    public int getKings() {
+        return kings;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public int grayPieces() {
+        return Integer.bitCount(gray);
+    }
+
+    public int whitePieces() {
+        return Integer.bitCount(white);
+    }
+
+    public boolean hasPiece(int square) {
+        return square >= 0 && ((gray | white) & (1 << square)) != 0;
+    }
+
+    public PieceType getPieceType(int square) {
+        if (!hasPiece(square)) {
+            return null;
+        }
+
+        boolean king = (kings & (1 << square)) != 0;
+        if ((gray & (1 << square)) != 0) {
+            return king ? PieceType.GRAY_SUP : PieceType.GRAY;
+        }
+        return king ? PieceType.WHITE_SUP : PieceType.WHITE;
+    }
+
+    public MoveType tryMove(int from, int to) {
+        if (!hasPiece(from) || to < 0 || hasPiece(to)) {
+            return MoveType.NONE;
+        }
+
+        int relation = MoveTables.relation(from, to);
+        if (relation < 0) {
+            return MoveType.NONE;
+        }
+
+        int direction = MoveTables.direction(relation);
+        boolean movingGray = (gray & (1 << from)) != 0;
+        if (MoveTables.isJump(relation)) {
+            int opponents = movingGray ? white : gray;
+            return (opponents & (1 << MoveTables.step(from, direction))) != 0 ? MoveType.KILL : MoveType.NONE;
+        }
+
+        int directions = MoveTables.stepDirections(movingGray, (kings & (1 << from)) != 0);
+        return (directions & (1 << direction)) != 0 ? MoveType.NORMAL : MoveType.NONE;
+    }
+
+    public int generateMoves(boolean grayToMove, int[] moves) {
+        int opponents = grayToMove ? white : gray;
+        int occupied = gray | white;
+        int count = 0;
+
+        for (int pieces = grayToMove ? gray : white; pieces != 0; pieces &= pieces - 1) {
+            int from = Integer.numberOfTrailingZeros(pieces);
+            int directions = MoveTables.stepDirections(grayToMove, (kings & (1 << from)) != 0);
+
+            for (int direction = 0; direction < MoveTables.DIRECTIONS; direction++) {
+                int step = MoveTables.step(from, direction);
+                if (step < 0) {
+                    continue;
+                }
+                if ((occupied & (1 << step)) == 0) {
+                    if ((directions & (1 << direction)) != 0) {
+                        moves[count++] = Move.of(from, step, false);
+                    }
+                } else if ((opponents & (1 << step)) != 0) {
+                    int jump = MoveTables.jump(from, direction);
+                    if (jump >= 0 && (occupied & (1 << jump)) == 0) {
+                        moves[count++] = Move.of(from, jump, true);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    public static int capturedSquare(int from, int to) {
+        int relation = MoveTables.relation(from, to);
+        return MoveTables.isJump(relation) ? MoveTables.step(from, MoveTables.direction(relation)) : -1;
+    }
+
+    public void makeMove(int move) {
+        makeMove(Move.from(move), Move.to(move), Move.type(move));
+    }
+
+    public void makeMove(int from, int to, MoveType moveType) {
+        if (moveType == MoveType.NONE) {
+            return;
+        }
+
+        int fromBit = 1 << from;
+        int toBit = 1 << to;
+        boolean movingGray = (gray & fromBit) != 0;
+        boolean movingKing = (kings & fromBit) != 0;
+        if (movingGray) {
+            gray = gray & ~fromBit | toBit;
+        } else {
+            white = white & ~fromBit | toBit;
+        }
+        if (movingKing) {
+            kings = kings & ~fromBit | toBit;
+        }
+
+        if (moveType == MoveType.KILL) {
+            int captured = capturedSquare(from, to);
+            int capturedBit = 1 << captured;
+            hash ^= Zobrist.key((gray & capturedBit) != 0, (kings & capturedBit) != 0, captured);
+            gray &= ~capturedBit;
+            white &= ~capturedBit;
+            kings &= ~capturedBit;
+        }
+
+        if ((MoveTables.promotionRow(movingGray) & toBit) != 0) {
+            kings |= toBit;
+        }
+        hash ^= Zobrist.key(movingGray, movingKing, from) ^ Zobrist.key(movingGray, (kings & toBit) != 0, to);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bedi.warcaby;
+
+import javafx.scene.Node;
+
+public interface BoardView {
+    Node getNode();
+
+    void show(Board position);
+
+    interface MoveHandler {
+        void requested(int fromX, int fromY, int newX, int newY);
+    }
+}
@@ -0,0 +1,110 @@
+package com.bedi.warcaby;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BotClient implements Runnable {
+    public record Stats(LatencyHistogram connect, LatencyHistogram joined, LatencyHistogram roundTrip,
+                        LongAdder connected, LongAdder moves, LongAdder rejected, LongAdder finished, LongAdder failed) {
+        public Stats() {
+            this(new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram(),
+                    new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final String mode;
+    private final long thinkMillis;
+    private final Stats stats;
+
+    private final Board board = new Board();
+    private final int[] moves = new int[Board.MAX_MOVES];
+    private final int[] move = new int[4];
+    private boolean gray;
+    private long sentAt = 0;
+
+    public BotClient(InetSocketAddress address, String mode, long thinkMillis, Stats stats) {
+        this.address = address;
+        this.mode = mode;
+        this.thinkMillis = thinkMillis;
+        this.stats = stats;
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(address);
+            socket.setTcpNoDelay(true);
+            stats.connect().record(System.nanoTime() - start);
+
+            BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            send(bufferedWriter, mode);
+
+            String player = bufferedReader.readLine();
+            if (player == null) {
+                throw new EOFException();
+            }
+            gray = player.equals("1");
+            stats.joined().record(System.nanoTime() - start);
+            stats.connected().increment();
+
+            String message;
+            while ((message = bufferedReader.readLine()) != null) {
+                if (message.startsWith(Coder.PING)) {
+                    if (thinkMillis > 0) {
+                        Thread.sleep(thinkMillis);
+                    }
+                    sentAt = System.nanoTime();
+                    send(bufferedWriter, pickMove());
+                    stats.moves().increment();
+                } else if (onResult(message)) {
+                    stats.finished().increment();
+                    return;
+                }
+            }
+            throw new EOFException();
+        } catch (IOException | InterruptedException e) {
+            stats.failed().increment();
+        }
+    }
+
+    private boolean onResult(String message) {
+        if (sentAt != 0) {
+            stats.roundTrip().record(System.nanoTime() - sentAt);
+            sentAt = 0;
+        }
+
+        String result = message.split(" ")[4];
+        if (result.startsWith("END") || result.equals(Coder.DRAW)) {
+            return true;
+        }
+
+        MoveType moveType = MoveType.valueOf(result);
+        if (moveType == MoveType.NONE) {
+            stats.rejected().increment();
+            return false;
+        }
+        Coder.decode(message, move);
+        board.makeMove(Board.square(move[0], move[1]), Board.square(move[2], move[3]), moveType);
+        return false;
+    }
+
+    private String pickMove() {
+        int count = board.generateMoves(gray, moves);
+        int picked = count == 0 ? 0 : moves[ThreadLocalRandom.current().nextInt(count)];
+        int from = Move.from(picked);
+        int to = Move.to(picked);
+        return Coder.encodeMove(Board.squareX(from), Board.squareY(from), Board.squareX(to), Board.squareY(to));
+    }
+
+    private static void send(BufferedWriter bufferedWriter, String line) throws IOException {
+        bufferedWriter.write(line);
+        bufferedWriter.newLine();
+        bufferedWriter.flush();
+    }
+}
@@ -0,0 +1,138 @@
+package com.bedi.warcaby;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class Broadcast {
+    public interface Subscriber {
+        boolean isBinary();
+
+        boolean isOpen();
+
+        boolean offer(byte[] frame);
+
+        void finish();
+    }
+
+    private static final class Watcher {
+        private final Subscriber subscriber;
+        private boolean stale = false;
+
+        private Watcher(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+    }
+
+    private final List<Watcher> watchers = new ArrayList<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.MAX_FRAME_LENGTH);
+    private final Board board;
+    private int player;
+    private int moves;
+    private int winner = 0;
+    private boolean closed = false;
+    private byte[] snapshotText;
+    private byte[] snapshotBinary;
+
+    public Broadcast(Board board, int player, int moves) {
+        this.board = new Board(board);
+        this.player = player;
+        this.moves = moves;
+    }
+
+    public synchronized boolean subscribe(Subscriber subscriber) {
+        if (closed || !subscriber.offer(snapshot(subscriber.isBinary()))) {
+            subscriber.finish();
+            return false;
+        }
+        watchers.add(new Watcher(subscriber));
+        ServerStats.spectators(1);
+        return true;
+    }
+
+    public synchronized void moved(int fromX, int fromY, int newX, int newY, MoveType moveType) {
+        board.makeMove(Board.square(fromX, fromY), Board.square(newX, newY), moveType);
+        player = 3 - player;
+        moves++;
+        snapshotText = null;
+        snapshotBinary = null;
+        if (watchers.isEmpty()) {
+            return;
+        }
+
+        byte[] text = text(Coder.encode(fromX, fromY, newX, newY, moveType));
+        buffer.clear();
+        BinaryCodec.putResult(buffer, fromX, fromY, newX, newY, moveType);
+        publish(text, Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    public synchronized void ended(int winner) {
+        if (closed) {
+            return;
+        }
+        this.winner = winner;
+        publish(text(Coder.encodeEnd(winner)), binaryEnd());
+        close();
+    }
+
+    public synchronized void close() {
+        closed = true;
+        for (Watcher watcher : watchers) {
+            watcher.subscriber.finish();
+        }
+        ServerStats.spectators(-watchers.size());
+        watchers.clear();
+    }
+
+    public synchronized int size() {
+        return watchers.size();
+    }
+
+    private void publish(byte[] text, byte[] binary) {
+        Iterator<Watcher> iterator = watchers.iterator();
+        while (iterator.hasNext()) {
+            Watcher watcher = iterator.next();
+            Subscriber subscriber = watcher.subscriber;
+            if (!subscriber.isOpen()) {
+                iterator.remove();
+                ServerStats.spectators(-1);
+            } else if (watcher.stale) {
+                watcher.stale = !subscriber.offer(snapshot(subscriber.isBinary()));
+                if (winner != 0 && !watcher.stale) {
+                    subscriber.offer(subscriber.isBinary() ? binary : text);
+                }
+            } else if (!subscriber.offer(subscriber.isBinary() ? binary : text)) {
+                watcher.stale = true;
+                ServerStats.spectatorLagged();
+            }
+        }
+    }
+
+    private byte[] snapshot(boolean binary) {
+        if (binary) {
+            if (snapshotBinary == null) {
+                buffer.clear();
+                BinaryCodec.putSnapshot(buffer, board.getGray(), board.getWhite(), board.getKings(), player, moves);
+                snapshotBinary = Arrays.copyOf(buffer.array(), buffer.position());
+            }
+            return snapshotBinary;
+        }
+        if (snapshotText == null) {
+            snapshotText = text(Coder.encodeSnapshot(board.getGray(), board.getWhite(), board.getKings(), player, moves));
+        }
+        return snapshotText;
+    }
+
+    private byte[] binaryEnd() {
+        buffer.clear();
+        BinaryCodec.putEnd(buffer, winner);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static byte[] text(String message) {
+        return (message + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+}
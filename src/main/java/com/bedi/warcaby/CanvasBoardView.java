@@ -0,0 +1,137 @@
+package com.bedi.warcaby;
+
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class CanvasBoardView implements BoardView {
+    private static final int TILE_SIZE = ChessboardClient.TILE_SIZE;
+    private static final Color LIGHT = Color.valueOf("#C1A89F");
+    private static final Color DARK = Color.valueOf("#5D5364");
+    private static final Color GRAY = Color.valueOf("#4F4F4F");
+    private static final Color WHITE = Color.valueOf("#CEB087");
+
+    private final Canvas canvas = new Canvas(ChessboardClient.WIDTH * TILE_SIZE, ChessboardClient.HEIGHT * TILE_SIZE);
+    private final Map<PieceType, Image> images = new EnumMap<>(PieceType.class);
+    private final Image background;
+    private final MoveHandler handler;
+
+    private Board position = new Board(0, 0, 0);
+    private int dragged = -1;
+    private double mouseX, mouseY;
+    private double dragX, dragY;
+
+    public CanvasBoardView(MoveHandler handler) {
+        this.handler = handler;
+        background = render(canvas.getWidth(), canvas.getHeight(), this::drawTiles);
+        for (PieceType pieceType : PieceType.values()) {
+            images.put(pieceType, render(TILE_SIZE, TILE_SIZE, gc -> drawPiece(gc, pieceType)));
+        }
+
+        canvas.setOnMousePressed(this::pressed);
+        canvas.setOnMouseDragged(this::dragged);
+        canvas.setOnMouseReleased(this::released);
+        draw();
+    }
+
+    @Override
+    public Node getNode() {
+        return canvas;
+    }
+
+    @Override
+    public void show(Board position) {
+        this.position = position;
+        dragged = -1;
+        draw();
+    }
+
+    private void pressed(MouseEvent e) {
+        int x = (int) (e.getX() / TILE_SIZE);
+        int y = (int) (e.getY() / TILE_SIZE);
+        int square = Board.square(x, y);
+        if (!position.hasPiece(square)) {
+            return;
+        }
+        dragged = square;
+        mouseX = e.getX();
+        mouseY = e.getY();
+        dragX = x * TILE_SIZE;
+        dragY = y * TILE_SIZE;
+    }
+
+    private void dragged(MouseEvent e) {
+        if (dragged < 0) {
+            return;
+        }
+        dragX = e.getX() - mouseX + Board.squareX(dragged) * TILE_SIZE;
+        dragY = e.getY() - mouseY + Board.squareY(dragged) * TILE_SIZE;
+        draw();
+    }
+
+    private void released(MouseEvent e) {
+        if (dragged < 0) {
+            return;
+        }
+        int from = dragged;
+        handler.requested(Board.squareX(from), Board.squareY(from), Coder.pixelToBoard(dragX), Coder.pixelToBoard(dragY));
+    }
+
+    private void draw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.drawImage(background, 0, 0);
+        for (int square = 0; square < Board.SQUARES; square++) {
+            if (square != dragged && position.hasPiece(square)) {
+                gc.drawImage(images.get(position.getPieceType(square)), Board.squareX(square) * TILE_SIZE, Board.squareY(square) * TILE_SIZE);
+            }
+        }
+        if (dragged >= 0) {
+            gc.drawImage(images.get(position.getPieceType(dragged)), dragX, dragY);
+        }
+    }
+
+    private void drawTiles(GraphicsContext gc) {
+        for (int y = 0; y < ChessboardClient.HEIGHT; y++) {
+            for (int x = 0; x < ChessboardClient.WIDTH; x++) {
+                gc.setFill((x + y) % 2 == 0 ? LIGHT : DARK);
+                gc.fillRect(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            }
+        }
+    }
+
+    private void drawPiece(GraphicsContext gc, PieceType pieceType) {
+        Color color = pieceType == PieceType.GRAY || pieceType == PieceType.GRAY_SUP ? GRAY : WHITE;
+        double center = TILE_SIZE / 2.0;
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(TILE_SIZE * 0.03);
+        drawEllipse(gc, Color.BLACK, center, center + TILE_SIZE * 0.07, 1);
+        drawEllipse(gc, color, center, center, 1);
+        if (pieceType == PieceType.GRAY_SUP || pieceType == PieceType.WHITE_SUP) {
+            drawEllipse(gc, color, center, center, 0.5);
+        }
+    }
+
+    private static void drawEllipse(GraphicsContext gc, Color fill, double centerX, double centerY, double scale) {
+        double radiusX = TILE_SIZE * 0.3125 * scale;
+        double radiusY = TILE_SIZE * 0.26 * scale;
+        gc.setFill(fill);
+        gc.fillOval(centerX - radiusX, centerY - radiusY, radiusX * 2, radiusY * 2);
+        gc.strokeOval(centerX - radiusX, centerY - radiusY, radiusX * 2, radiusY * 2);
+    }
+
+    private static Image render(double width, double height, Consumer<GraphicsContext> painter) {
+        Canvas scratch = new Canvas(width, height);
+        painter.accept(scratch.getGraphicsContext2D());
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return scratch.snapshot(parameters, null);
+    }
+}
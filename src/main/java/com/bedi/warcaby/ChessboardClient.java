@@ -2,7 +2,6 @@ package com.bedi.warcaby;
 
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.scene.Group;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
@@ -11,225 +10,374 @@ import javafx.stage.Stage;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ChessboardClient extends Application {
     public static final int TILE_SIZE = 100;
     public static final int WIDTH = 8;
     public static final int HEIGHT = 8;
+    private static final int RECONNECT_SECONDS = 30;
+    private static final String HOST = System.getProperty("warcaby.host", "localhost");
+    private static final String RENDERER = System.getProperty("warcaby.client.renderer", "canvas");
 
     public static String mode = null;
+    public static boolean binary = false;
 
-    private final Tile[][] board = new Tile[WIDTH][HEIGHT];
-
-    private final Group tileGroup = new Group();
-    private final Group pieceGroup = new Group();
+    private final Board position = new Board(0, 0, 0);
+    private final AtomicBoolean renderPending = new AtomicBoolean();
+    private BoardView view;
 
     private Socket socket;
     private BufferedWriter bufferedWriter;
     private BufferedReader bufferedReader;
+    private DataInputStream dataInputStream;
+    private final ByteBuffer frame = ByteBuffer.allocate(BinaryCodec.MAX_FRAME_LENGTH);
 
     private int player;
+    private long token = 0;
+    private int applied = 0;
+    private boolean syncRequested = false;
     private int winner = 0;
     private final Label colorLabel = new Label();
 
-    private float time = 0;
+    private int clockPlayer = 0;
+    private long clockMillis = 0;
+    private long clockReceivedAt = 0;
     private final Timer timer = new Timer();
 
-    private boolean isItMyTurn = false;
+    private volatile boolean isItMyTurn = false;
 
     public static void main(String[] args) {
         mode = args[0];
+        int next = 1;
+        if (mode.equals("watch")) {
+            mode += " " + args[next++];
+        }
+        binary = args.length > next && args[next].equals("binary");
         launch();
     }
 
     @Override
     public void start(Stage stage) throws IOException, InterruptedException {
         try {
-            socket = new Socket("localhost", 1234);
+            connect(mode);
         } catch (IOException e) {
+            closeEverything();
             Thread.sleep(5000);
-            socket = new Socket("localhost", 1234);
-        }
-
-        try {
-            bufferedWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
-            bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            bufferedWriter.write(mode);
-            bufferedWriter.newLine();
-            bufferedWriter.flush();
-
-            if (bufferedReader.readLine().equals("1")) {
-                player = 1;
-            } else {
-                player = 2;
+            try {
+                connect(mode);
+            } catch (IOException retry) {
+                closeEverything();
             }
-        } catch (IOException e) {
-            closeEverything();
         }
 
         countTime();
-        listenToServer();
 
         Scene scene = new Scene(createContent());
         stage.setTitle("Checkers");
         stage.setScene(scene);
         stage.show();
 
+        listenToServer();
+
     }
 
-    private Parent createContent() {
-        Pane root = new Pane();
-        root.setPrefSize(WIDTH * TILE_SIZE, HEIGHT * TILE_SIZE);
-        root.getChildren().addAll(tileGroup, pieceGroup, colorLabel, timer);
+    private void connect(String handshake) throws IOException {
+        socket = new Socket(HOST, Server.PORT);
+        bufferedWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+        bufferedWriter.write(handshake + (binary ? " binary" : "") + (isWatching() ? "" : " session clock sync"));
+        bufferedWriter.newLine();
+        bufferedWriter.flush();
 
-        for (int y = 0; y < 8; y++) {
-            for (int x = 0; x < 8; x++) {
-                Tile tile = new Tile((x + y) % 2 == 0, x, y);
-                board[x][y] = tile;
+        if (isWatching()) {
+            if (binary) {
+                dataInputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            } else {
+                bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            }
+        } else if (binary) {
+            dataInputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            dataInputStream.readUnsignedByte();
+            player = dataInputStream.readUnsignedByte();
+            if (dataInputStream.readUnsignedByte() != BinaryCodec.SESSION) {
+                throw new IOException("Expected session");
+            }
+            token = dataInputStream.readLong();
+        } else {
+            bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            player = readLine().equals("1") ? 1 : 2;
+            String session = readLine();
+            if (!session.startsWith(Coder.SESSION)) {
+                throw new IOException("Expected session");
+            }
+            token = Coder.decodeToken(session.substring(Coder.SESSION.length() + 1));
+        }
+    }
 
-                tileGroup.getChildren().add(tile);
+    private static boolean isWatching() {
+        return mode.startsWith("watch");
+    }
 
-                Piece piece = null;
-                if (y <= 2 && (x + y) % 2 != 0) {
-                    piece = makePiece(PieceType.GRAY, x, y);
-                } else if (y >= 5 && (x + y) % 2 != 0) {
-                    piece = makePiece(PieceType.WHITE, x, y);
-                }
+    private boolean reconnect() {
+        isItMyTurn = false;
+        closeEverything();
+        if (token == 0) {
+            return false;
+        }
 
-                if (piece != null) {
-                    tile.setPiece(piece);
-                    pieceGroup.getChildren().add(piece);
-                }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(RECONNECT_SECONDS);
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(1000);
+                connect("resume " + Coder.encodeToken(token));
+                syncRequested = true;
+                return true;
+            } catch (IOException e) {
+                closeEverything();
+            } catch (InterruptedException e) {
+                return false;
             }
         }
-
-        colorLabel.relocate(0,0);
-        colorLabel.setText("You play" + ((player == 1) ? " GRAY" : " WHITE"));
-
-        return root;
+        return false;
     }
 
-    private Piece makePiece(PieceType pieceType, int x, int y) {
-        Piece piece = new Piece(pieceType, x ,y);
+    private String readLine() throws IOException {
+        String line = bufferedReader.readLine();
+        if (line == null) {
+            throw new EOFException();
+        }
+        return line;
+    }
 
-        piece.setOnMouseReleased(e -> {
-            int newX = Coder.pixelToBoard(piece.getLayoutX());
-            int newY = Coder.pixelToBoard(piece.getLayoutY());
+    private Parent createContent() {
+        Pane root = new Pane();
+        root.setPrefSize(WIDTH * TILE_SIZE, HEIGHT * TILE_SIZE);
+        view = RENDERER.equals("nodes") ? new NodeBoardView(this::requestMove) : new CanvasBoardView(this::requestMove);
+        root.getChildren().addAll(view.getNode(), colorLabel, timer);
+        render();
 
-            requestMove(piece, newX, newY);
-        });
+        colorLabel.relocate(0,0);
+        colorLabel.setText(isWatching() ? "Watching" : "You play" + ((player == 1) ? " GRAY" : " WHITE"));
 
-        return piece;
+        return root;
     }
 
-    public void requestMove(Piece piece, int newX, int newY) {
-        if (!isItMyTurn) {
-            makeMove(piece, newX, newY, new MoveResult(MoveType.NONE));
+    public void requestMove(int fromX, int fromY, int newX, int newY) {
+        if (!isItMyTurn || (fromX == newX && fromY == newY)) {
+            render();
             return;
         }
 
         try {
-            bufferedWriter.write(Coder.pixelToBoard(piece.getOldX()) + " " + Coder.pixelToBoard(piece.getOldY()) + " " + newX + " " + newY);
-            bufferedWriter.newLine();
-            bufferedWriter.flush();
+            synchronized (frame) {
+                if (binary) {
+                    frame.clear();
+                    BinaryCodec.putMove(frame, fromX, fromY, newX, newY);
+                    socket.getOutputStream().write(frame.array(), 0, frame.position());
+                } else {
+                    bufferedWriter.write(Coder.encodeMove(fromX, fromY, newX, newY));
+                    bufferedWriter.newLine();
+                    bufferedWriter.flush();
+                }
+            }
         } catch (IOException e) {
-            e.printStackTrace();
+            render();
         }
     }
 
-    private void makeMove(Piece piece, int newX, int newY, MoveResult moveResult) {
-        MoveType moveType = moveResult.getMoveType();
-        switch (moveType) {
-            case NONE -> piece.abortMove();
-            case NORMAL -> {
-                board[Coder.pixelToBoard(piece.getOldX())][Coder.pixelToBoard(piece.getOldY())].setPiece(null);
-                piece.move(newX, newY);
-                board[newX][newY].setPiece(piece);
-                isItMyTurn = false;
-                if ((newY == 7 && piece.getPieceType() == PieceType.GRAY) || (newY == 0 && piece.getPieceType() == PieceType.WHITE)) {
-                    Platform.runLater(piece::promote);
-                }
-            }
-            case KILL -> {
-                board[Coder.pixelToBoard(piece.getOldX())][Coder.pixelToBoard(piece.getOldY())].setPiece(null);
-                piece.move(newX, newY);
-                board[newX][newY].setPiece(piece);
-
-                Piece otherPiece = moveResult.getPiece();
-                board[Coder.pixelToBoard(otherPiece.getOldX())][Coder.pixelToBoard(otherPiece.getOldY())].setPiece(null);
-                Platform.runLater(() -> pieceGroup.getChildren().remove(otherPiece));
-                isItMyTurn = false;
-                if ((newY == 7 && piece.getPieceType() == PieceType.GRAY) || (newY == 0 && piece.getPieceType() == PieceType.WHITE)) {
-                    Platform.runLater(piece::promote);
-                }
+    private void requestSync() throws IOException {
+        if (syncRequested) {
+            return;
+        }
+        syncRequested = true;
+        synchronized (frame) {
+            if (binary) {
+                frame.clear();
+                BinaryCodec.putSync(frame);
+                socket.getOutputStream().write(frame.array(), 0, frame.position());
+            } else {
+                bufferedWriter.write(Coder.SYNC);
+                bufferedWriter.newLine();
+                bufferedWriter.flush();
             }
         }
     }
 
+    private void render() {
+        if (!renderPending.compareAndSet(false, true)) {
+            return;
+        }
+        Platform.runLater(() -> {
+            renderPending.set(false);
+            Board shown;
+            synchronized (position) {
+                shown = new Board(position);
+            }
+            view.show(shown);
+        });
+    }
+
     public void countTime() {
         ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
         executor.scheduleAtFixedRate(() -> {
             if (winner != 0) {
-                Platform.runLater(() -> timer.set((winner == player) ? "You won!" : "You lost!"));
+                if (winner == Referee.DRAW) {
+                    Platform.runLater(() -> timer.set("Draw!"));
+                } else if (isWatching()) {
+                    Platform.runLater(() -> timer.set((winner == 1 ? "GRAY" : "WHITE") + " won!"));
+                } else {
+                    Platform.runLater(() -> timer.set((winner == player) ? "You won!" : "You lost!"));
+                }
                 executor.shutdown();
             }
 
-            if (isItMyTurn) {
-                time += 0.1;
-                Platform.runLater(() -> timer.set("Timer: " + (int)time + "s."));
+            if (clockPlayer != 0) {
+                long left = Math.max(0, clockMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - clockReceivedAt));
+                String label = clockPlayer == player ? "Timer: " : "Wait: ";
+                Platform.runLater(() -> timer.set(label + (left + 999) / 1000 + "s."));
             }
         }, 0, 100, TimeUnit.MILLISECONDS);
     }
 
     public void listenToServer() {
         new Thread(() -> {
-            String message;
-
-            while (socket.isConnected() && winner == 0) {
+            while (winner == 0) {
                 try {
-                    message = bufferedReader.readLine();
-                    System.out.println(message);
-                    if (message.startsWith("PING")) {
-                        isItMyTurn = true;
+                    if (binary) {
+                        readFrame();
                     } else {
-                        String[] partsOfMessage = message.split(" ");
-                        int fromX = Integer.parseInt(partsOfMessage[0]);
-                        int fromY = Integer.parseInt(partsOfMessage[1]);
-                        int newX = Integer.parseInt(partsOfMessage[2]);
-                        int newY = Integer.parseInt(partsOfMessage[3]);
-
-                        Piece piece = board[fromX][fromY].getPiece();
-
-                        switch(partsOfMessage[4]) {
-                            case "NONE" -> makeMove(piece, newX, newY, new MoveResult(MoveType.NONE));
-                            case "NORMAL" -> makeMove(piece, newX, newY, new MoveResult(MoveType.NORMAL));
-                            case "KILL" -> {
-                                int killX = Integer.parseInt(partsOfMessage[5]);
-                                int killY = Integer.parseInt(partsOfMessage[6]);
-                                Piece killedPiece = board[killX][killY].getPiece();
-
-                                makeMove(piece, newX, newY, new MoveResult(MoveType.KILL, killedPiece));
-                            }
-                            case "END1" -> winner = 1;
-                            case "END2" -> winner = 2;
-                        }
+                        readMessage();
                     }
                 } catch (IOException e) {
-                    closeEverything();
+                    if (winner != 0 || !reconnect()) {
+                        break;
+                    }
                 }
             }
             closeEverything();
         }).start();
     }
 
+    private void readMessage() throws IOException {
+        String message = readLine();
+        System.out.println(message);
+        if (message.startsWith("PING")) {
+            isItMyTurn = true;
+            return;
+        }
+        if (message.startsWith(Coder.CLOCK)) {
+            String[] partsOfClock = message.split(" ");
+            onClock(Integer.parseInt(partsOfClock[1]), Long.parseLong(partsOfClock[2]));
+            return;
+        }
+        if (message.startsWith(Coder.SNAPSHOT)) {
+            String[] partsOfSnapshot = message.split(" ");
+            onSnapshot(Integer.parseUnsignedInt(partsOfSnapshot[1], 16), Integer.parseUnsignedInt(partsOfSnapshot[2], 16),
+                    Integer.parseUnsignedInt(partsOfSnapshot[3], 16), Integer.parseInt(partsOfSnapshot[5]));
+            return;
+        }
+
+        int ended = Coder.decodeEnd(message);
+        if (ended != 0) {
+            winner = ended;
+            return;
+        }
+
+        String[] partsOfMessage = message.split(" ");
+        int fromX = Integer.parseInt(partsOfMessage[0]);
+        int fromY = Integer.parseInt(partsOfMessage[1]);
+        int newX = Integer.parseInt(partsOfMessage[2]);
+        int newY = Integer.parseInt(partsOfMessage[3]);
+        int sequence = Coder.decodeSequence(partsOfMessage);
+
+        switch (partsOfMessage[4]) {
+            case "NONE" -> onResult(fromX, fromY, newX, newY, MoveType.NONE, sequence);
+            case "NORMAL" -> onResult(fromX, fromY, newX, newY, MoveType.NORMAL, sequence);
+            case "KILL" -> onResult(fromX, fromY, newX, newY, MoveType.KILL, sequence);
+        }
+    }
+
+    private void readFrame() throws IOException {
+        int opcode = dataInputStream.readUnsignedByte();
+        switch (opcode) {
+            case BinaryCodec.PING -> isItMyTurn = true;
+            case BinaryCodec.END -> winner = dataInputStream.readUnsignedByte();
+            case BinaryCodec.CLOCK -> {
+                int clockOwner = dataInputStream.readUnsignedByte();
+                long moveMillis = dataInputStream.readInt();
+                dataInputStream.readInt();
+                dataInputStream.readInt();
+                onClock(clockOwner, moveMillis);
+            }
+            case BinaryCodec.SNAPSHOT -> {
+                int gray = dataInputStream.readInt();
+                int white = dataInputStream.readInt();
+                int kings = dataInputStream.readInt();
+                dataInputStream.readUnsignedByte();
+                onSnapshot(gray, white, kings, dataInputStream.readUnsignedShort());
+            }
+            case BinaryCodec.NONE, BinaryCodec.NORMAL, BinaryCodec.KILL -> {
+                int from = dataInputStream.readUnsignedByte();
+                int to = dataInputStream.readUnsignedByte();
+                if (opcode == BinaryCodec.KILL) {
+                    dataInputStream.readUnsignedByte();
+                }
+                int sequence = isWatching() ? -1 : dataInputStream.readUnsignedShort();
+                onResult(BinaryCodec.x(from), BinaryCodec.y(from), BinaryCodec.x(to), BinaryCodec.y(to),
+                        BinaryCodec.moveType(opcode), sequence);
+            }
+            default -> throw new IOException("Unexpected frame " + opcode);
+        }
+    }
+
+    private void onClock(int clockOwner, long moveMillis) {
+        clockReceivedAt = System.nanoTime();
+        clockMillis = moveMillis;
+        clockPlayer = clockOwner;
+    }
+
+    private void onSnapshot(int gray, int white, int kings, int moves) {
+        applied = moves;
+        syncRequested = false;
+        synchronized (position) {
+            position.set(new Board(gray, white, kings));
+        }
+        render();
+    }
+
+    private void onResult(int fromX, int fromY, int newX, int newY, MoveType moveType, int sequence) throws IOException {
+        int from = Board.square(fromX, fromY);
+        int to = Board.square(newX, newY);
+        boolean fits = moveType == MoveType.NONE || position.tryMove(from, to) == moveType;
+        if (sequence >= 0) {
+            int expected = moveType == MoveType.NONE ? applied : applied + 1;
+            if (syncRequested || sequence != expected || !fits) {
+                requestSync();
+                return;
+            }
+        }
+        if (moveType != MoveType.NONE && fits) {
+            synchronized (position) {
+                position.makeMove(from, to, moveType);
+            }
+            applied++;
+            isItMyTurn = false;
+        }
+        render();
+    }
+
     private void closeEverything() {
         try {
             if (bufferedReader != null) {
                 bufferedReader.close();
             }
+            if (dataInputStream != null) {
+                dataInputStream.close();
+            }
             if (bufferedWriter != null) {
                 bufferedWriter.close();
             }
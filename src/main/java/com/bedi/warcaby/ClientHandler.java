@@ -1,259 +1,202 @@
 package com.bedi.warcaby;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.EOFException;
+import java.io.IOException;
 
 public class ClientHandler implements Runnable {
-    private final Tile[][] board = new Tile[ChessboardClient.WIDTH][ChessboardClient.HEIGHT];
-
-    private final Socket socket1;
-    private final BufferedWriter bufferedWriter1;
-    private final BufferedReader bufferedReader1;
-    private final Socket socket2;
-    private final BufferedWriter bufferedWriter2;
-    private final BufferedReader bufferedReader2;
-
-    private int grayPieces = 0;
-    private int whitePieces = 0;
-
-    public ClientHandler(Socket socket1, Socket socket2) throws IOException {
+    private final Match match;
+
+    private final PlayerConnection player1;
+    private final PlayerConnection player2;
+    private final MatchChannel channel1;
+    private final MatchChannel channel2;
+    private final Sessions<PlayerConnection> sessions;
+    private final int[] move = new int[4];
+    private volatile boolean expired = false;
+
+    public ClientHandler(Match match, PlayerConnection player1, PlayerConnection player2, Sessions<PlayerConnection> sessions) throws IOException {
+        this.match = match;
+        this.player1 = player1;
+        this.player2 = player2;
+        this.sessions = sessions;
         try {
-            this.socket1 = socket1;
-            bufferedWriter1 = new BufferedWriter(new OutputStreamWriter(socket1.getOutputStream()));
-            bufferedReader1 = new BufferedReader(new InputStreamReader(socket1.getInputStream()));
-            bufferedWriter1.write("1");
-            bufferedWriter1.newLine();
-            bufferedWriter1.flush();
+            channel1 = player1.getChannel();
+            join(player1, 1);
 
-            this.socket2 = socket2;
-            if (socket2 != null) {
-                bufferedWriter2 = new BufferedWriter(new OutputStreamWriter(socket2.getOutputStream()));
-                bufferedReader2 = new BufferedReader(new InputStreamReader(socket2.getInputStream()));
-                bufferedWriter2.write("2");
-                bufferedWriter2.newLine();
-                bufferedWriter2.flush();
+            if (player2 != null) {
+                channel2 = player2.getChannel();
+                join(player2, 2);
             } else {
-                bufferedWriter2 = null;
-                bufferedReader2 = null;
+                channel2 = null;
             }
         } catch (IOException e) {
-            closeEverything();
+            disconnected();
             throw e;
         }
     }
 
-    @Override
-    public void run() {
-        createContent();
-        int i = 1;
-        while (socket1.isConnected() && (socket2 == null || socket2.isConnected()) && whitePieces * grayPieces > 0) {
-            try {
-                if (processMove(i % 2 * 2 - 1)) {
-                    i++;
-                }
-            } catch (IOException e) {
-                closeEverything();
-                e.printStackTrace();
-            }
+    private void join(PlayerConnection player, int number) throws IOException {
+        MatchChannel channel = player.getChannel();
+        Handshake handshake = player.getHandshake();
+        channel.joined(number);
+        if (handshake.session()) {
+            channel.session(match.getToken(number));
         }
-    }
-
-    private void createContent() {
-        for (int y = 0; y < 8; y++) {
-            for (int x = 0; x < 8; x++) {
-                Tile tile = new Tile((x + y) % 2 == 0, x, y);
-                board[x][y] = tile;
-
-                Piece piece = null;
-                if (y <= 2 && (x + y) % 2 != 0) {
-                    piece = new Piece(PieceType.GRAY, x, y);
-                    grayPieces++;
-                } else if (y >= 5 && (x + y) % 2 != 0) {
-                    piece = new Piece(PieceType.WHITE, x, y);
-                    whitePieces++;
-                }
-
-                if (piece != null) {
-                    tile.setPiece(piece);
-                }
+        if (handshake.sync()) {
+            match.snapshot(channel);
+        } else if (handshake.isResume()) {
+            for (int i = 0; i < match.getMoveCount(); i++) {
+                int move = match.getMove(i);
+                int from = Move.from(move);
+                int to = Move.to(move);
+                channel.moved(Board.squareX(from), Board.squareY(from), Board.squareX(to), Board.squareY(to), Move.type(move), i + 1);
             }
         }
+        channel.flush();
     }
 
-    public static void ping(BufferedWriter bufferedWriter) throws IOException {
-        bufferedWriter.write("PING");
-        bufferedWriter.newLine();
-        bufferedWriter.flush();
-    }
-
-    private MoveResult tryMove(Piece piece, int newX, int newY) {
-        if (board[newX][newY].hasPiece() || (newX + newY) % 2 == 0) {
-            return new MoveResult(MoveType.NONE);
-        }
-
-        int oldX = Coder.pixelToBoard(piece.getOldX());
-        int oldY = Coder.pixelToBoard(piece.getOldY());
-
-        if (Math.abs(newX - oldX) == 1 && newY - oldY == piece.getPieceType().moveDir ) {
-            return new MoveResult(MoveType.NORMAL);
-        } else if (Math.abs(newX - oldX) == 2 && Math.abs(newY - oldY) == 2) {
-            int middleX = oldX + (newX - oldX) / 2;
-            int middleY = oldY + (newY - oldY) / 2;
-
-            if (board[middleX][middleY].hasPiece() && board[middleX][middleY].getPiece().getPieceType() != piece.getPieceType()) {
-                return new MoveResult(MoveType.KILL, board[middleX][middleY].getPiece());
+    @Override
+    public void run() {
+        long startedAt = ServerStats.matchStarted();
+        try {
+            while (player1.isConnected() && (player2 == null || player2.isConnected()) && !match.isOver()) {
+                processMove();
+            }
+        } catch (IOException e) {
+            if (!expired) {
+                disconnected();
+            }
+        } finally {
+            if (expired) {
+                sendEnd();
             }
-        } else if ((piece.getPieceType() == PieceType.GRAY_SUP || piece.getPieceType() == PieceType.WHITE_SUP ) && (Math.abs(newX - oldX) == 1 && Math.abs(newY - oldY) == 1)) {
-            return new MoveResult(MoveType.NORMAL);
+            closeEverything();
+            ServerStats.matchFinished(startedAt);
         }
-
-        return new MoveResult(MoveType.NONE);
     }
 
-    public boolean processMove(int moveDir) throws IOException {
+    public boolean processMove() throws IOException {
         try {
-            BufferedReader fromBufferedReader;
-            BufferedWriter fromBufferedWriter;
-            BufferedWriter toBufferedWriter;
-
-            if (moveDir == -1) {
-                fromBufferedReader = bufferedReader1;
-                fromBufferedWriter = bufferedWriter1;
-                toBufferedWriter = bufferedWriter2;
+            PlayerConnection fromPlayer;
+            MatchChannel fromChannel;
+            MatchChannel toChannel;
+
+            if (match.currentPlayer() == 1) {
+                fromPlayer = player1;
+                fromChannel = channel1;
+                toChannel = channel2;
             } else {
-                fromBufferedReader = bufferedReader2;
-                fromBufferedWriter = bufferedWriter2;
-                toBufferedWriter = bufferedWriter1;
-            }
-
-            if (fromBufferedWriter != null) {
-                ping(fromBufferedWriter);
-            }
-
-            String messageFrom;
-            if (fromBufferedReader != null) {
-                messageFrom = fromBufferedReader.readLine();
+                fromPlayer = player2;
+                fromChannel = channel2;
+                toChannel = channel1;
+            }
+
+            if (fromPlayer != null) {
+                int player = match.currentPlayer();
+                match.getClock().start(player, () -> expired(player));
+                sendClock();
+                fromChannel.ping();
+                flush();
+                fromPlayer.pinged();
+                int message;
+                while ((message = fromPlayer.readMessage(move)) == BinaryCodec.SYNC) {
+                    synchronized (match) {
+                        match.snapshot(fromChannel);
+                    }
+                    fromChannel.flush();
+                }
+                if (message != BinaryCodec.MOVE) {
+                    throw new EOFException("Player " + match.currentPlayer() + " disconnected");
+                }
             } else {
-                messageFrom = Coder.generateMove();
+                flush();
+                match.computerMove(move);
             }
-            System.out.println(messageFrom);
-
-            int fromX = Integer.parseInt(messageFrom.split(" ")[0]);
-            int fromY = Integer.parseInt(messageFrom.split(" ")[1]);
-            int newX = (int) Float.parseFloat(messageFrom.split(" ")[2]);
-            int newY = (int) Float.parseFloat(messageFrom.split(" ")[3]);
-
-            if (board[fromX][fromY].getPiece() == null) {
-                return false;
+            if (Log.isEnabled(Log.Level.DEBUG)) {
+                Log.debug(Coder.encodeMove(move[0], move[1], move[2], move[3]));
             }
 
-            MoveResult moveResult = tryMove(board[fromX][fromY].getPiece(), newX, newY);
-            if (Math.signum(board[fromX][fromY].getPiece().getPieceType().moveDir) == Math.signum(moveDir)) {
-                if (fromBufferedReader != null) {
-                    fromBufferedWriter.write(Coder.encode(board[fromX][fromY].getPiece(), newX, newY, new MoveResult(MoveType.NONE)));
-                    fromBufferedWriter.newLine();
-                    fromBufferedWriter.flush();
-                }
-                return false;
+            boolean accepted;
+            synchronized (match) {
+                accepted = !match.isOver() && match.processMove(move[0], move[1], move[2], move[3], fromChannel, toChannel);
             }
-
-            String toMessage = Coder.encode(board[fromX][fromY].getPiece(), newX, newY, moveResult);
-            makeMove(board[fromX][fromY].getPiece(), newX, newY, moveResult);
-
-            if (toBufferedWriter != null) {
-                toBufferedWriter.write(toMessage);
-                toBufferedWriter.newLine();
-                toBufferedWriter.flush();
+            if (match.isOver()) {
+                flush();
+            } else if (accepted && fromChannel != null) {
+                fromChannel.flush();
             }
-
-            if (fromBufferedReader != null) {
-                fromBufferedWriter.write(toMessage);
-                fromBufferedWriter.newLine();
-                fromBufferedWriter.flush();
+            return accepted;
+        } catch (IOException e) {
+            if (!match.isOver()) {
+                e.printStackTrace();
             }
+            throw e;
+        }
+    }
 
-            if (whitePieces == 0 || grayPieces == 0) {
-                String endOfGameMessage;
-                if (whitePieces == 0) {
-                    endOfGameMessage = "1 2 3 4 END1";
-                } else {
-                    endOfGameMessage = "1 2 3 4 END2";
-                }
-
-                if (toBufferedWriter != null) {
-                    toBufferedWriter.write(endOfGameMessage);
-                    toBufferedWriter.newLine();
-                    toBufferedWriter.flush();
-                }
-
-                if (fromBufferedReader != null) {
-                    fromBufferedWriter.write(endOfGameMessage);
-                    fromBufferedWriter.newLine();
-                    fromBufferedWriter.flush();
-                }
+    private void sendClock() throws IOException {
+        Clock clock = match.getClock();
+        if (clock.getRunning() == 0) {
+            return;
+        }
+        for (int player = 1; player <= 2; player++) {
+            PlayerConnection connection = player == 1 ? player1 : player2;
+            if (connection != null && connection.getHandshake().clock()) {
+                connection.getChannel().clock(clock.getRunning(), clock.moveMillis(), clock.gameMillis(1), clock.gameMillis(2));
             }
+        }
+    }
 
-            return moveResult.getMoveType() != MoveType.NONE;
-        } catch (IOException e) {
-            closeEverything();
-            e.printStackTrace();
-            throw e;
+    private void flush() throws IOException {
+        channel1.flush();
+        if (channel2 != null) {
+            channel2.flush();
         }
     }
 
-    public void makeMove(Piece piece, int newX, int newY, MoveResult moveResult) {
-        MoveType moveType = moveResult.getMoveType();
-        switch (moveType) {
-            case NONE -> piece.abortMove();
-            case NORMAL -> {
-                board[Coder.pixelToBoard(piece.getOldX())][Coder.pixelToBoard(piece.getOldY())].setPiece(null);
-                piece.move(newX, newY);
-                board[newX][newY].setPiece(piece);
-                if ((newY == 7 && piece.getPieceType() == PieceType.GRAY) || (newY == 0 && piece.getPieceType() == PieceType.WHITE)) {
-                    piece.promote();
-                }
+    private void expired(int player) {
+        synchronized (match) {
+            if (match.isOver() || match.currentPlayer() != player) {
+                return;
             }
-            case KILL -> {
-                board[Coder.pixelToBoard(piece.getOldX())][Coder.pixelToBoard(piece.getOldY())].setPiece(null);
-                piece.move(newX, newY);
-                board[newX][newY].setPiece(piece);
-                if (piece.getPieceType() == PieceType.GRAY || piece.getPieceType() == PieceType.GRAY_SUP) {
-                    whitePieces--;
-                } else {
-                    grayPieces--;
-                }
+            match.forfeit(player);
+            expired = true;
+        }
+        (player == 1 ? player1 : player2).shutdownInput();
+    }
 
-                Piece otherPiece = moveResult.getPiece();
-                board[Coder.pixelToBoard(otherPiece.getOldX())][Coder.pixelToBoard(otherPiece.getOldY())].setPiece(null);
-                if ((newY == 7 && piece.getPieceType() == PieceType.GRAY) || (newY == 0 && piece.getPieceType() == PieceType.WHITE)) {
-                    piece.promote();
-                }
+    private void sendEnd() {
+        try {
+            channel1.ended(match.winner());
+            if (channel2 != null) {
+                channel2.ended(match.winner());
             }
+            flush();
+        } catch (IOException ignored) {
         }
     }
 
+    private void disconnected() {
+        match.getClock().stop();
+        closeEverything();
+        if (match.isOver()) {
+            return;
+        }
+        if (isResumable(player1) || isResumable(player2)) {
+            sessions.park(match);
+        } else {
+            match.abandon();
+        }
+    }
+
+    private static boolean isResumable(PlayerConnection player) {
+        return player != null && (player.getHandshake().session() || player.getHandshake().isResume());
+    }
+
     private void closeEverything() {
-        try {
-            if (bufferedReader1 != null) {
-                bufferedReader1.close();
-            }
-            if (bufferedWriter1 != null) {
-                bufferedWriter1.close();
-            }
-            if (socket1 != null) {
-                socket1.close();
-            }
-            if (bufferedReader2 != null) {
-                bufferedReader2.close();
-            }
-            if (bufferedWriter2 != null) {
-                bufferedWriter2.close();
-            }
-            if (socket2 != null) {
-                socket2.close();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        player1.close();
+        if (player2 != null) {
+            player2.close();
         }
     }
 }
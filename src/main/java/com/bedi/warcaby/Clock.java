@@ -0,0 +1,68 @@
+package com.bedi.warcaby;
+
+import java.util.concurrent.TimeUnit;
+
+public class Clock {
+    public static final long MOVE_MILLIS = Long.getLong("warcaby.clock.moveSeconds", 60) * 1000;
+    public static final long GAME_MILLIS = Long.getLong("warcaby.clock.gameSeconds", 600) * 1000;
+
+    private final long[] remaining = {GAME_MILLIS, GAME_MILLIS};
+    private int running = 0;
+    private long turnStartedAt;
+    private TimingWheel.Timeout timeout;
+
+    public static boolean isEnabled() {
+        return MOVE_MILLIS > 0 || GAME_MILLIS > 0;
+    }
+
+    public synchronized void start(int player, Runnable onExpiry) {
+        if (running == player || !isEnabled()) {
+            return;
+        }
+        stop();
+        running = player;
+        turnStartedAt = System.nanoTime();
+        timeout = TimingWheel.shared().schedule(onExpiry, deadlineMillis());
+    }
+
+    public synchronized void stop() {
+        if (running == 0) {
+            return;
+        }
+        if (GAME_MILLIS > 0) {
+            remaining[running - 1] = Math.max(0, remaining[running - 1] - elapsedMillis());
+        }
+        timeout.cancel();
+        timeout = null;
+        running = 0;
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    public synchronized long gameMillis(int player) {
+        if (GAME_MILLIS <= 0) {
+            return 0;
+        }
+        long left = remaining[player - 1];
+        return running == player ? Math.max(0, left - elapsedMillis()) : left;
+    }
+
+    public synchronized long moveMillis() {
+        return running == 0 ? 0 : Math.max(0, deadlineMillis() - elapsedMillis());
+    }
+
+    private long deadlineMillis() {
+        if (MOVE_MILLIS <= 0) {
+            return remaining[running - 1];
+        } else if (GAME_MILLIS <= 0) {
+            return MOVE_MILLIS;
+        }
+        return Math.min(MOVE_MILLIS, remaining[running - 1]);
+    }
+
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - turnStartedAt);
+    }
+}
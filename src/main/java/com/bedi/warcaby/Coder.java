@@ -1,26 +1,113 @@
 package com.bedi.warcaby;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class Coder {
-    public static String encode(Piece piece, int newX, int newY, MoveResult moveResult) {
-        String result = pixelToBoard(piece.getOldX()) + " " + pixelToBoard(piece.getOldY()) + " " + newX + " " + newY + " " + moveResult.getMoveType().toString();
-        if (moveResult.getMoveType() == MoveType.KILL) {
-            result += " " + pixelToBoard(moveResult.getPiece().getOldX()) + " " + pixelToBoard(moveResult.getPiece().getOldY());
+    public static final String PING = "PING";
+    public static final String SESSION = "SESSION";
+    public static final String CLOCK = "CLOCK";
+    public static final String SNAPSHOT = "SNAPSHOT";
+    public static final String DRAW = "DRAW";
+    public static final String SYNC = "SYNC";
+
+    public static String encode(int fromX, int fromY, int newX, int newY, MoveType moveType) {
+        String result = fromX + " " + fromY + " " + newX + " " + newY + " " + moveType.toString();
+        if (moveType == MoveType.KILL) {
+            result += " " + (fromX + newX) / 2 + " " + (fromY + newY) / 2;
         }
         return result;
     }
 
+    public static String encode(int fromX, int fromY, int newX, int newY, MoveType moveType, int sequence) {
+        return encode(fromX, fromY, newX, newY, moveType) + " " + sequence;
+    }
+
+    public static String encodeEnd(int winner) {
+        return winner == Referee.DRAW ? "1 2 3 4 " + DRAW : "1 2 3 4 END" + winner;
+    }
+
+    public static int decodeEnd(String message) {
+        if (message.endsWith(" " + DRAW)) {
+            return Referee.DRAW;
+        }
+        int end = message.lastIndexOf(" END");
+        return end < 0 ? 0 : Integer.parseInt(message.substring(end + 4));
+    }
+
+    public static int decodeSequence(String[] parts) {
+        int withSequence = parts[4].equals(MoveType.KILL.toString()) ? 8 : 6;
+        return parts.length == withSequence ? Integer.parseInt(parts[withSequence - 1]) : -1;
+    }
+
+    public static String encodeSession(long token) {
+        return SESSION + " " + encodeToken(token);
+    }
+
+    public static String encodeClock(int player, long moveMillis, long player1Millis, long player2Millis) {
+        return CLOCK + " " + player + " " + moveMillis + " " + player1Millis + " " + player2Millis;
+    }
+
+    public static String encodeSnapshot(int gray, int white, int kings, int player, int moves) {
+        return SNAPSHOT + " " + Integer.toHexString(gray) + " " + Integer.toHexString(white) + " " + Integer.toHexString(kings) + " " + player + " " + moves;
+    }
+
+    public static String encodeToken(long token) {
+        return Long.toHexString(token);
+    }
+
+    public static long decodeToken(String token) {
+        return Long.parseUnsignedLong(token, 16);
+    }
+
+    public static String encodeMove(int fromX, int fromY, int newX, int newY) {
+        return fromX + " " + fromY + " " + newX + " " + newY;
+    }
+
+    public static void decode(String message, int[] move) {
+        int field = 0;
+        int value = 0;
+        boolean negative = false;
+        boolean digits = false;
+        boolean fraction = false;
+
+        for (int i = 0; i <= message.length() && field < move.length; i++) {
+            char c = i < message.length() ? message.charAt(i) : ' ';
+            if (c == ' ') {
+                if (digits) {
+                    move[field++] = negative ? -value : value;
+                }
+                value = 0;
+                negative = false;
+                digits = false;
+                fraction = false;
+            } else if (c == '-' && !digits) {
+                negative = true;
+            } else if (c == '.' && digits) {
+                fraction = true;
+            } else if (c >= '0' && c <= '9') {
+                if (!fraction) {
+                    value = value * 10 + c - '0';
+                }
+                digits = true;
+            } else {
+                throw new NumberFormatException("Malformed move: " + message);
+            }
+        }
+
+        if (field < move.length) {
+            throw new NumberFormatException("Malformed move: " + message);
+        }
+    }
+
     public static int pixelToBoard(double pixel) {
         return (int)(pixel + ChessboardClient.TILE_SIZE / 2) / ChessboardClient.TILE_SIZE;
     }
 
-    private static int randInt(int min, int max) {
-        Random random = new Random();
-        return random.nextInt(max - min) + min;
+    private static int randInt(RandomGenerator random, int min, int max) {
+        return random.nextInt(min, max);
     }
 
-    public static String generateMove() {
-        return randInt(0,8) + " " + randInt(0,8) + " " + randInt(0,8) + " " + randInt(0,8);
+    public static String generateMove(RandomGenerator random) {
+        return encodeMove(randInt(random, 0, 8), randInt(random, 0, 8), randInt(random, 0, 8), randInt(random, 0, 8));
     }
 }
@@ -0,0 +1,56 @@
+package com.bedi.warcaby;
+
+import java.util.SplittableRandom;
+
+public class ComputerPlayer {
+    private final long seed;
+    private ParallelSearch search;
+    private SplittableRandom random;
+
+    public ComputerPlayer(long seed) {
+        this.seed = seed;
+    }
+
+    public void move(Board board, boolean grayToMove, int quietPliesLeft, long requestedAt, int[] move) {
+        if (search == null) {
+            search = new ParallelSearch();
+        }
+
+        int best = knownMove(board, grayToMove, quietPliesLeft);
+        if (best < 0) {
+            best = search.bestMove(board, grayToMove, requestedAt);
+        }
+        if (best < 0) {
+            if (random == null) {
+                random = new SplittableRandom(seed);
+            }
+            ServerStats.randomRetry();
+            Coder.decode(Coder.generateMove(random), move);
+            return;
+        }
+        move[0] = Board.squareX(Move.from(best));
+        move[1] = Board.squareY(Move.from(best));
+        move[2] = Board.squareX(Move.to(best));
+        move[3] = Board.squareY(Move.to(best));
+    }
+
+    private static int knownMove(Board board, boolean grayToMove, int quietPliesLeft) {
+        OpeningBook book = OpeningBook.shared();
+        if (book != null) {
+            int move = book.bestMove(board, grayToMove);
+            if (move >= 0) {
+                ServerStats.bookMove();
+                return move;
+            }
+        }
+        Endgame endgame = Endgame.shared();
+        if (endgame != null && endgame.covers(board)) {
+            int move = endgame.bestMove(board, grayToMove, quietPliesLeft);
+            if (move >= 0) {
+                ServerStats.endgameMove();
+                return move;
+            }
+        }
+        return -1;
+    }
+}
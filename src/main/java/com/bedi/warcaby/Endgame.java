@@ -0,0 +1,92 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class Endgame {
+    private static final String FILE = System.getProperty("warcaby.endgame.file");
+    private static Endgame shared;
+
+    private final PositionTable table;
+    private final int pieces;
+    private final int[] moves = new int[Board.MAX_MOVES];
+    private final Board child = new Board();
+
+    public Endgame(PositionTable table) {
+        this.table = table;
+        this.pieces = table.parameter();
+    }
+
+    public static synchronized Endgame shared() {
+        if (shared == null && FILE != null) {
+            try {
+                shared = new Endgame(PositionTable.open(Path.of(FILE)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return shared;
+    }
+
+    public static short win(int plies) {
+        return (short) (plies + 1);
+    }
+
+    public static short loss(int plies) {
+        return (short) -(plies + 1);
+    }
+
+    public static int plies(short value) {
+        return Math.abs(value) - 1;
+    }
+
+    public int getPieces() {
+        return pieces;
+    }
+
+    public boolean covers(Board board) {
+        return board.grayPieces() + board.whitePieces() <= pieces;
+    }
+
+    public short probe(Board board, boolean grayToMove) {
+        return table.get(Zobrist.position(board, grayToMove));
+    }
+
+    public int bestMove(Board board, boolean grayToMove) {
+        return bestMove(board, grayToMove, Integer.MAX_VALUE);
+    }
+
+    public synchronized int bestMove(Board board, boolean grayToMove, int pliesLeft) {
+        if (!covers(board)) {
+            return -1;
+        }
+
+        int count = board.generateMoves(grayToMove, moves);
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            child.set(board);
+            child.makeMove(moves[i]);
+            if ((grayToMove ? child.getWhite() : child.getGray()) == 0) {
+                return moves[i];
+            }
+            short value = probe(child, !grayToMove);
+            if (value != 0 && plies(value) + 1 > pliesLeft) {
+                value = 0;
+            }
+            int score;
+            if (value < 0) {
+                score = Short.MAX_VALUE - plies(value);
+            } else if (value > 0) {
+                score = Short.MIN_VALUE + plies(value);
+            } else {
+                score = 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+}
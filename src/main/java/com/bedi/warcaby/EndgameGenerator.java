@@ -0,0 +1,238 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class EndgameGenerator {
+    public static final int MAX_PIECES = 4;
+
+    private static final int[][] BINOMIAL = new int[Board.SQUARES + 1][MAX_PIECES + 1];
+
+    static {
+        for (int n = 0; n <= Board.SQUARES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, MAX_PIECES); k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private final int pieces;
+    private final int[] offsets;
+    private final short[] values;
+    private final int[] moves = new int[Board.MAX_MOVES];
+    private final Board board = new Board();
+    private final Board child = new Board();
+
+    private int gray;
+    private int white;
+    private int kings;
+    private boolean grayToMove;
+
+    public EndgameGenerator(int pieces) {
+        if (pieces < 2 || pieces > MAX_PIECES) {
+            throw new IllegalArgumentException("Pieces must be between 2 and " + MAX_PIECES);
+        }
+        this.pieces = pieces;
+        offsets = new int[pieces + 2];
+        for (int k = 2; k <= pieces; k++) {
+            offsets[k + 1] = offsets[k] + (BINOMIAL[Board.SQUARES][k] << (2 * k + 1));
+        }
+        values = new short[offsets[pieces + 1]];
+    }
+
+    public int positions() {
+        return values.length;
+    }
+
+    public int index(int gray, int white, int kings, boolean grayToMove) {
+        int occupied = gray | white;
+        int k = Integer.bitCount(occupied);
+        int rank = 0;
+        int colors = 0;
+        int kingBits = 0;
+        int i = 0;
+        for (int bits = occupied; bits != 0; bits &= bits - 1, i++) {
+            int square = Integer.numberOfTrailingZeros(bits);
+            rank += BINOMIAL[square][i + 1];
+            if ((gray & (1 << square)) != 0) {
+                colors |= 1 << i;
+            }
+            if ((kings & (1 << square)) != 0) {
+                kingBits |= 1 << i;
+            }
+        }
+        return offsets[k] + (((rank << k | colors) << k | kingBits) << 1 | (grayToMove ? 1 : 0));
+    }
+
+    private boolean unrank(int index) {
+        int k = 2;
+        while (index >= offsets[k + 1]) {
+            k++;
+        }
+        int local = index - offsets[k];
+        grayToMove = (local & 1) != 0;
+        local >>>= 1;
+        int mask = (1 << k) - 1;
+        int kingBits = local & mask;
+        local >>>= k;
+        int colors = local & mask;
+        int rank = local >>> k;
+        if (colors == 0 || colors == mask) {
+            return false;
+        }
+
+        gray = 0;
+        white = 0;
+        kings = 0;
+        int square = Board.SQUARES - 1;
+        for (int i = k - 1; i >= 0; i--) {
+            while (BINOMIAL[square][i + 1] > rank) {
+                square--;
+            }
+            rank -= BINOMIAL[square][i + 1];
+            if ((colors & (1 << i)) != 0) {
+                gray |= 1 << square;
+            } else {
+                white |= 1 << square;
+            }
+            if ((kingBits & (1 << i)) != 0) {
+                kings |= 1 << square;
+            }
+            square--;
+        }
+        return (gray & ~kings & MoveTables.GRAY_PROMOTION) == 0 && (white & ~kings & MoveTables.WHITE_PROMOTION) == 0;
+    }
+
+    public short value(int index) {
+        return values[index];
+    }
+
+    public int solve() {
+        for (int index = 0; index < values.length; index++) {
+            if (!unrank(index)) {
+                values[index] = Short.MIN_VALUE;
+            }
+        }
+
+        int plies = 0;
+        int idle = 0;
+        while (idle < 2) {
+            int resolved = 0;
+            for (int index = 0; index < values.length; index++) {
+                if (values[index] == 0 && unrank(index)) {
+                    short value = evaluate(plies);
+                    if (value != 0) {
+                        values[index] = value;
+                        resolved++;
+                    }
+                }
+            }
+            idle = resolved == 0 ? idle + 1 : 0;
+            plies++;
+        }
+        return plies - 2;
+    }
+
+    private short evaluate(int plies) {
+        board.set(new Board(gray, white, kings));
+        int count = board.generateMoves(grayToMove, moves);
+        if (count == 0) {
+            return plies == 0 ? Endgame.loss(0) : 0;
+        }
+
+        boolean allWinning = true;
+        int longestWin = -1;
+        for (int i = 0; i < count; i++) {
+            child.set(board);
+            child.makeMove(moves[i]);
+            int opponents = grayToMove ? child.getWhite() : child.getGray();
+            if (opponents == 0) {
+                return plies == 1 ? Endgame.win(1) : 0;
+            }
+            short value = values[index(child.getGray(), child.getWhite(), child.getKings(), !grayToMove)];
+            if (value == 0 || Endgame.plies(value) >= plies) {
+                allWinning = false;
+            } else if (value < 0 && Endgame.plies(value) == plies - 1) {
+                return Endgame.win(plies);
+            } else if (value > 0) {
+                longestWin = Math.max(longestWin, Endgame.plies(value));
+            } else {
+                allWinning = false;
+            }
+        }
+        return allWinning && longestWin == plies - 1 ? Endgame.loss(plies) : 0;
+    }
+
+    public int write(Path path) throws IOException {
+        int count = 0;
+        for (short value : values) {
+            if (value != 0 && value != Short.MIN_VALUE) {
+                count++;
+            }
+        }
+
+        long[] keys = new long[count];
+        short[] stored = new short[count];
+        int next = 0;
+        for (int index = 0; index < values.length; index++) {
+            short value = values[index];
+            if (value != 0 && value != Short.MIN_VALUE && unrank(index)) {
+                keys[next] = Zobrist.position(new Board(gray, white, kings), grayToMove);
+                stored[next++] = value;
+            }
+        }
+        PositionTable.write(path, keys, stored, count, pieces);
+        return count;
+    }
+
+    public int verify(Endgame endgame) {
+        int errors = 0;
+        for (int index = 0; index < values.length; index++) {
+            if (!unrank(index)) {
+                continue;
+            }
+            Board position = new Board(gray, white, kings);
+            short expected = expected(position, endgame);
+            short stored = endgame.probe(position, grayToMove);
+            short mirrored = values[index(Integer.reverse(white), Integer.reverse(gray), Integer.reverse(kings), !grayToMove)];
+            if (stored != expected || stored != values[index] || mirrored != values[index]) {
+                if (errors++ < 10) {
+                    System.out.println("Mismatch at " + Coder.encodeSnapshot(gray, white, kings, grayToMove ? 1 : 2, 0)
+                            + ": stored " + stored + ", expected " + expected + ", solved " + values[index] + ", mirrored " + mirrored);
+                }
+            }
+        }
+        return errors;
+    }
+
+    private short expected(Board position, Endgame endgame) {
+        int count = position.generateMoves(grayToMove, moves);
+        if (count == 0) {
+            return Endgame.loss(0);
+        }
+
+        int shortestWin = Integer.MAX_VALUE;
+        int longestLoss = -1;
+        boolean escapes = false;
+        for (int i = 0; i < count; i++) {
+            child.set(position);
+            child.makeMove(moves[i]);
+            if ((grayToMove ? child.getWhite() : child.getGray()) == 0) {
+                return Endgame.win(1);
+            }
+            short value = endgame.probe(child, !grayToMove);
+            if (value < 0) {
+                shortestWin = Math.min(shortestWin, Endgame.plies(value) + 1);
+            } else if (value > 0) {
+                longestLoss = Math.max(longestLoss, Endgame.plies(value) + 1);
+            } else {
+                escapes = true;
+            }
+        }
+        if (shortestWin != Integer.MAX_VALUE) {
+            return Endgame.win(shortestWin);
+        }
+        return escapes ? 0 : Endgame.loss(longestLoss);
+    }
+}
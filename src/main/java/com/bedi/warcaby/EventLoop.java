@@ -0,0 +1,109 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class EventLoop implements Runnable {
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final Map<GameRooms.Partition, List<Runnable>> batches = new HashMap<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+    private volatile Thread thread;
+
+    public EventLoop() throws IOException {
+        selector = Selector.open();
+    }
+
+    public Selector selector() {
+        return selector;
+    }
+
+    public ByteBuffer readBuffer() {
+        return readBuffer;
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop() && wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    public void submit(GameRooms.Partition partition, Runnable task) {
+        batches.computeIfAbsent(partition, p -> new ArrayList<>()).add(task);
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        while (selector.isOpen()) {
+            try {
+                selector.select();
+                wakeupPending.set(false);
+                runTasks();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    try {
+                        ((NioConnection) key.attachment()).handle(key);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        key.cancel();
+                    }
+                }
+                runTasks();
+                submitBatches();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void submitBatches() {
+        for (Map.Entry<GameRooms.Partition, List<Runnable>> entry : batches.entrySet()) {
+            List<Runnable> batch = entry.getValue();
+            if (batch.size() == 1) {
+                entry.getKey().execute(batch.get(0));
+            } else if (!batch.isEmpty()) {
+                entry.getKey().executeAll(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public void close() {
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bedi.warcaby;
+
+public record GameRecord(long id, int humans, long[] tokens, int[] moves, int winner) {
+    public boolean isFinished() {
+        return winner > 0;
+    }
+
+    public boolean isDraw() {
+        return winner == Journal.DRAW;
+    }
+
+    public boolean isAbandoned() {
+        return winner == Journal.ABANDONED;
+    }
+
+    public boolean isOpen() {
+        return winner == 0;
+    }
+
+    public boolean isHuman(int player) {
+        return (humans & (1 << (player - 1))) != 0;
+    }
+}
@@ -0,0 +1,96 @@
+package com.bedi.warcaby;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+public class GameRooms {
+    private final Partition[] partitions;
+
+    public GameRooms(int threads) {
+        partitions = new Partition[threads];
+        for (int i = 0; i < threads; i++) {
+            partitions[i] = new Partition();
+            Thread thread = new Thread(partitions[i], "rooms-" + i);
+            thread.setDaemon(true);
+            partitions[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    public Partition partition(long matchId) {
+        return partitions[(int) Math.floorMod(matchId, (long) partitions.length)];
+    }
+
+    public int size() {
+        return partitions.length;
+    }
+
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.running = false;
+            LockSupport.unpark(partition.thread);
+        }
+    }
+
+    public static final class Partition implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean sleeping = new AtomicBoolean();
+        private volatile boolean running = true;
+        private Thread thread;
+
+        public void execute(Runnable task) {
+            tasks.add(task);
+            wake();
+        }
+
+        public void executeAll(List<Runnable> batch) {
+            Runnable[] batched = batch.toArray(new Runnable[0]);
+            tasks.add(() -> {
+                for (Runnable task : batched) {
+                    runSafely(task);
+                }
+                ServerStats.roomTasks(batched.length - 1);
+            });
+            wake();
+        }
+
+        private void wake() {
+            if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    sleeping.set(true);
+                    if (tasks.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    sleeping.set(false);
+                    continue;
+                }
+
+                int batch = 0;
+                do {
+                    runSafely(task);
+                    batch++;
+                } while ((task = tasks.poll()) != null);
+                ServerStats.roomBatch(batch);
+            }
+        }
+
+        private static void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
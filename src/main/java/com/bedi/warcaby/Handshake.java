@@ -0,0 +1,83 @@
+package com.bedi.warcaby;
+
+public record Handshake(String mode, String argument, boolean binary, boolean session, boolean clock, boolean sync) {
+    public static Handshake parse(String line) {
+        String[] parts = line.trim().split(" ");
+        boolean binary = false;
+        boolean session = false;
+        boolean clock = false;
+        boolean sync = false;
+        String argument = null;
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].equals("binary")) {
+                binary = true;
+            } else if (parts[i].equals("session")) {
+                session = true;
+            } else if (parts[i].equals("clock")) {
+                clock = true;
+            } else if (parts[i].equals("sync")) {
+                sync = true;
+            } else if (i == 1) {
+                argument = parts[i];
+            }
+        }
+        return new Handshake(parts[0], argument, binary, session, clock, sync);
+    }
+
+    public boolean isWait() {
+        return mode.startsWith("wait");
+    }
+
+    public boolean isStats() {
+        return mode.startsWith("stats");
+    }
+
+    public boolean isResume() {
+        return mode.equals("resume");
+    }
+
+    public boolean isWatch() {
+        return mode.equals("watch");
+    }
+
+    public boolean isList() {
+        return mode.equals("list");
+    }
+
+    public long token() {
+        try {
+            return argument == null ? 0 : Coder.decodeToken(argument);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public long matchId() {
+        try {
+            return argument == null ? -1 : Long.parseLong(argument);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(mode);
+        if (argument != null) {
+            builder.append(' ').append(argument);
+        }
+        if (binary) {
+            builder.append(" binary");
+        }
+        if (session) {
+            builder.append(" session");
+        }
+        if (clock) {
+            builder.append(" clock");
+        }
+        if (sync) {
+            builder.append(" sync");
+        }
+        return builder.toString();
+    }
+}
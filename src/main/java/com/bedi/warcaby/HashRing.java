@@ -0,0 +1,55 @@
+package com.bedi.warcaby;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class HashRing<T> {
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+    private final int replicas;
+
+    public HashRing(int replicas) {
+        this.replicas = replicas;
+    }
+
+    public static long hash(long key) {
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
+    }
+
+    public synchronized void add(T node) {
+        for (int i = 0; i < replicas; i++) {
+            ring.put(hash((long) node.hashCode() << 32 | i), node);
+        }
+    }
+
+    public synchronized void remove(T node) {
+        for (int i = 0; i < replicas; i++) {
+            ring.remove(hash((long) node.hashCode() << 32 | i), node);
+        }
+    }
+
+    public synchronized List<T> walk(long key) {
+        List<T> nodes = new ArrayList<>();
+        int distinct = ring.size() / replicas;
+        long position = hash(key);
+        for (Map<Long, T> part : List.of(ring.tailMap(position, true), ring.headMap(position, false))) {
+            for (T node : part.values()) {
+                if (!nodes.contains(node)) {
+                    nodes.add(node);
+                    if (nodes.size() == distinct) {
+                        return nodes;
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    public synchronized boolean isEmpty() {
+        return ring.isEmpty();
+    }
+}
@@ -0,0 +1,216 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Journal implements AutoCloseable {
+    public static final byte START = 1;
+    public static final byte MOVE = 2;
+    public static final byte END = 3;
+
+    public static final int ABANDONED = -1;
+    public static final int DRAW = Referee.DRAW;
+
+    public static final int START_LENGTH = 1 + Long.BYTES + 1 + 2 * Long.BYTES;
+    public static final int MOVE_LENGTH = 1 + Long.BYTES + Short.BYTES;
+    public static final int END_LENGTH = 1 + Long.BYTES + 1;
+
+    private static Journal shared;
+    private static boolean sharedOpened = false;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long commitMillis;
+    private final List<MappedByteBuffer> retired = new ArrayList<>();
+    private final Thread committer;
+
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private long nextMatchId;
+    private boolean dirty = false;
+    private boolean closed = false;
+
+    public Journal(Path directory, int segmentBytes, long commitMillis) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.commitMillis = commitMillis;
+        Files.createDirectories(directory);
+
+        long[] maxId = {0};
+        List<Path> segments = JournalReader.segments(directory);
+        int position = 0;
+        for (Path path : segments) {
+            position = JournalReader.scanSegment(path, new JournalReader.Visitor() {
+                @Override
+                public void started(long id, int humans, long token1, long token2) {
+                    maxId[0] = Math.max(maxId[0], id);
+                }
+            });
+        }
+        nextMatchId = maxId[0] + 1;
+
+        if (segments.isEmpty()) {
+            segmentIndex = 0;
+            segment = map(segmentIndex);
+        } else {
+            segmentIndex = JournalReader.segmentIndex(segments.get(segments.size() - 1));
+            segment = map(segmentIndex);
+            segment.position(position);
+        }
+
+        committer = new Thread(this::commitLoop, "journal-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public static synchronized Journal shared() {
+        if (!sharedOpened) {
+            sharedOpened = true;
+            String directory = System.getProperty("warcaby.journal.dir");
+            if (directory != null) {
+                try {
+                    shared = new Journal(Paths.get(directory),
+                            Integer.getInteger("warcaby.journal.segmentMegabytes", 64) << 20,
+                            Long.getLong("warcaby.journal.commitMillis", 10));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return shared;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized long nextMatchId() {
+        return nextMatchId++;
+    }
+
+    public synchronized void started(long matchId, int humans, long token1, long token2) {
+        if (reserve(START_LENGTH)) {
+            int position = segment.position();
+            segment.putLong(position + 1, matchId);
+            segment.put(position + 1 + Long.BYTES, (byte) humans);
+            segment.putLong(position + 2 + Long.BYTES, token1);
+            segment.putLong(position + 2 + 2 * Long.BYTES, token2);
+            commit(position, START, START_LENGTH);
+        }
+    }
+
+    public synchronized void moved(long matchId, int move) {
+        if (reserve(MOVE_LENGTH)) {
+            int position = segment.position();
+            segment.putLong(position + 1, matchId);
+            segment.putShort(position + 1 + Long.BYTES, (short) move);
+            commit(position, MOVE, MOVE_LENGTH);
+        }
+    }
+
+    public synchronized void ended(long matchId, int winner) {
+        if (reserve(END_LENGTH)) {
+            int position = segment.position();
+            segment.putLong(position + 1, matchId);
+            segment.put(position + 1 + Long.BYTES, (byte) winner);
+            commit(position, END, END_LENGTH);
+        }
+    }
+
+    public synchronized void recorded(long matchId, int humans, int[] moves, int count, int winner) {
+        started(matchId, humans, 0, 0);
+        for (int i = 0; i < count; i++) {
+            moved(matchId, moves[i]);
+        }
+        ended(matchId, winner);
+    }
+
+    private boolean reserve(int length) {
+        if (closed) {
+            return false;
+        }
+        if (segment.remaining() >= length) {
+            return true;
+        }
+
+        try {
+            retired.add(segment);
+            segment = map(++segmentIndex);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            closed = true;
+            return false;
+        }
+    }
+
+    private void commit(int position, byte type, int length) {
+        segment.put(position, type);
+        segment.position(position + length);
+        if (!dirty) {
+            dirty = true;
+            notifyAll();
+        }
+    }
+
+    private MappedByteBuffer map(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(JournalReader.segmentPath(directory, index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            List<MappedByteBuffer> toForce = new ArrayList<>();
+            synchronized (this) {
+                try {
+                    while (!dirty && !closed) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                toForce.addAll(retired);
+                retired.clear();
+                toForce.add(segment);
+                dirty = false;
+            }
+
+            for (MappedByteBuffer buffer : toForce) {
+                buffer.force();
+            }
+            synchronized (this) {
+                if (closed && !dirty) {
+                    return;
+                }
+            }
+
+            try {
+                Thread.sleep(commitMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
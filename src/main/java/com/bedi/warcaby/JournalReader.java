@@ -0,0 +1,160 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class JournalReader {
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    public interface Visitor {
+        default void started(long matchId, int humans, long token1, long token2) {
+        }
+
+        default void moved(long matchId, int move) {
+        }
+
+        default void ended(long matchId, int winner) {
+        }
+    }
+
+    public static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("%s%08d%s", PREFIX, index, SUFFIX));
+    }
+
+    public static int segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public static int scanSegment(Path segment, Visitor visitor) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int position = 0;
+        while (position < buffer.limit()) {
+            byte type = buffer.get(position);
+            int length = switch (type) {
+                case Journal.START -> Journal.START_LENGTH;
+                case Journal.MOVE -> Journal.MOVE_LENGTH;
+                case Journal.END -> Journal.END_LENGTH;
+                default -> 0;
+            };
+            if (length == 0 || position + length > buffer.limit()) {
+                break;
+            }
+
+            long matchId = buffer.getLong(position + 1);
+            int payload = position + 1 + Long.BYTES;
+            switch (type) {
+                case Journal.START -> visitor.started(matchId, buffer.get(payload),
+                        buffer.getLong(payload + 1), buffer.getLong(payload + 1 + Long.BYTES));
+                case Journal.MOVE -> visitor.moved(matchId, buffer.getShort(payload) & 0xFFFF);
+                case Journal.END -> visitor.ended(matchId, buffer.get(payload));
+            }
+            position += length;
+        }
+        return position;
+    }
+
+    public static void scan(Path directory, Visitor visitor) throws IOException {
+        for (Path segment : segments(directory)) {
+            scanSegment(segment, visitor);
+        }
+    }
+
+    public static void games(Path directory, Consumer<GameRecord> consumer) throws IOException {
+        Map<Long, GameBuilder> open = new LinkedHashMap<>();
+        scan(directory, new Visitor() {
+            @Override
+            public void started(long matchId, int humans, long token1, long token2) {
+                open.put(matchId, new GameBuilder(matchId, humans, new long[]{token1, token2}));
+            }
+
+            @Override
+            public void moved(long matchId, int move) {
+                GameBuilder game = open.get(matchId);
+                if (game != null) {
+                    game.add(move);
+                }
+            }
+
+            @Override
+            public void ended(long matchId, int winner) {
+                GameBuilder game = open.remove(matchId);
+                if (game != null) {
+                    consumer.accept(game.build(winner));
+                }
+            }
+        });
+        for (GameBuilder game : open.values()) {
+            consumer.accept(game.build(0));
+        }
+    }
+
+    private static class GameBuilder {
+        private final long id;
+        private final int humans;
+        private final long[] tokens;
+        private int[] moves = new int[64];
+        private int count = 0;
+
+        GameBuilder(long id, int humans, long[] tokens) {
+            this.id = id;
+            this.humans = humans;
+            this.tokens = tokens;
+        }
+
+        void add(int move) {
+            if (count == moves.length) {
+                moves = Arrays.copyOf(moves, count * 2);
+            }
+            moves[count++] = move;
+        }
+
+        GameRecord build(int winner) {
+            return new GameRecord(id, humans, tokens, Arrays.copyOf(moves, count), winner);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        games(Paths.get(args[0]), game -> {
+            StringBuilder builder = new StringBuilder();
+            builder.append(game.id()).append(game.isDraw() ? " DRAW" : game.isFinished() ? " END" + game.winner() : game.isAbandoned() ? " ABANDONED" : " OPEN");
+            for (int move : game.moves()) {
+                int from = Move.from(move);
+                int to = Move.to(move);
+                builder.append(" | ").append(Coder.encodeMove(Board.squareX(from), Board.squareY(from), Board.squareX(to), Board.squareY(to)));
+            }
+            System.out.println(builder);
+        });
+    }
+}
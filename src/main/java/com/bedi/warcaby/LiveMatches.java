@@ -0,0 +1,38 @@
+package com.bedi.warcaby;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LiveMatches {
+    private static final Map<Long, Match> matches = new ConcurrentHashMap<>();
+    private static final AtomicLong localIds = new AtomicLong();
+
+    public static long nextLocalId() {
+        return localIds.incrementAndGet();
+    }
+
+    public static void add(Match match) {
+        matches.put(match.getId(), match);
+    }
+
+    public static void remove(Match match) {
+        matches.remove(match.getId(), match);
+    }
+
+    public static Match find(long id) {
+        return matches.get(id);
+    }
+
+    public static int size() {
+        return matches.size();
+    }
+
+    public static String describe() {
+        StringBuilder builder = new StringBuilder("MATCHES");
+        for (long id : matches.keySet()) {
+            builder.append(' ').append(id);
+        }
+        return builder.toString();
+    }
+}
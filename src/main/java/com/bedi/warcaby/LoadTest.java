@@ -0,0 +1,59 @@
+package com.bedi.warcaby;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.ThreadFactory;
+
+public class LoadTest {
+    private static final long THINK_MILLIS = Long.getLong("warcaby.load.thinkMillis", 100);
+    private static final String TARGET = System.getProperty("warcaby.load.target");
+
+    public static void main(String[] args) throws Exception {
+        int matches = Integer.parseInt(args[0]);
+        boolean virtual = args.length > 1 && args[1].equals("virtual");
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        String mode = args.length > 3 ? args[3] : "wait";
+        ThreadFactory threadFactory = Threads.factory(virtual);
+
+        InetSocketAddress address;
+        if (TARGET == null) {
+            ServerSocket serverSocket = new ServerSocket(0, 4096);
+            Server server = new Server(serverSocket, threadFactory);
+            Thread acceptor = new Thread(server::startServer, "acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            address = new InetSocketAddress("localhost", serverSocket.getLocalPort());
+        } else {
+            String[] parts = TARGET.split(":");
+            address = new InetSocketAddress(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : Server.PORT);
+        }
+
+        BotClient.Stats stats = new BotClient.Stats();
+        int clients = mode.equals("play") ? matches : matches * 2;
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            try {
+                threadFactory.newThread(new BotClient(address, mode, THINK_MILLIS, stats)).start();
+            } catch (OutOfMemoryError e) {
+                stats.failed().add(clients - i);
+                break;
+            }
+        }
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.gc();
+        long heap = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        System.out.printf("%s threads, %d clients (%s): %d connected, %d failed, %d finished, %.0f moves/s, %d rejected, peak threads %d, heap %d MB%n",
+                virtual ? "virtual" : "platform", clients, mode, stats.connected().sum(), stats.failed().sum(), stats.finished().sum(),
+                stats.moves().sum() / elapsed, stats.rejected().sum(), ManagementFactory.getThreadMXBean().getPeakThreadCount(), heap >> 20);
+        System.out.println("connect " + stats.connect().describe());
+        System.out.println("joined " + stats.joined().describe());
+        System.out.println("round trip " + stats.roundTrip().describe());
+        if (TARGET == null) {
+            System.out.println(ServerStats.describe());
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bedi.warcaby;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final int CAPACITY = 8192;
+
+    private static final Level level = Level.valueOf(System.getProperty("warcaby.log.level", "INFO").toUpperCase());
+    private static final BlockingQueue<String> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private static final LongAdder dropped = new LongAdder();
+
+    static {
+        Thread writer = new Thread(Log::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != Level.OFF;
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public static void log(Level messageLevel, String message) {
+        if (isEnabled(messageLevel) && !queue.offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    public static long dropped() {
+        return dropped.sum();
+    }
+
+    private static void drain() {
+        while (true) {
+            try {
+                System.out.println(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+public class Match {
+    private static final SecureRandom tokens = new SecureRandom();
+    private static final int SNAPSHOT_MOVES = Integer.getInteger("warcaby.sync.snapshotMoves", 16);
+
+    private final Board board = new Board();
+    private final Clock clock = new Clock();
+    private final Journal journal;
+    private final long id;
+    private final Broadcast broadcast;
+    private final int humans;
+    private final long token1;
+    private final long token2;
+    private int[] history = new int[64];
+    private int moves = 0;
+    private final Referee referee = new Referee();
+    private int turn = 1;
+    private int result;
+    private ComputerPlayer computer;
+
+    public Match(int humans) {
+        this.journal = Journal.shared();
+        this.id = journal == null ? LiveMatches.nextLocalId() : journal.nextMatchId();
+        this.humans = humans;
+        this.token1 = tokens.nextLong();
+        this.token2 = tokens.nextLong();
+        if (journal != null) {
+            journal.started(id, humans, token1, token2);
+        }
+        this.result = referee.start(board, currentPlayer() == 1);
+        this.broadcast = new Broadcast(board, currentPlayer(), moves);
+        LiveMatches.add(this);
+    }
+
+    public Match(GameRecord game) {
+        this.journal = Journal.shared();
+        this.id = game.id();
+        this.humans = game.humans();
+        this.token1 = game.tokens()[0];
+        this.token2 = game.tokens()[1];
+        this.result = referee.start(board, currentPlayer() == 1);
+        for (int move : game.moves()) {
+            boolean irreversible = Referee.isIrreversible(board, move);
+            board.makeMove(move);
+            played(move);
+            result = referee.played(board, currentPlayer() == 1, irreversible);
+        }
+        this.broadcast = new Broadcast(board, currentPlayer(), moves);
+        LiveMatches.add(this);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Broadcast getBroadcast() {
+        return broadcast;
+    }
+
+    public boolean isHuman(int player) {
+        return (humans & (1 << (player - 1))) != 0;
+    }
+
+    public long getToken(int player) {
+        return player == 1 ? token1 : token2;
+    }
+
+    public int playerOf(long token) {
+        if (token == token1 && isHuman(1)) {
+            return 1;
+        } else if (token == token2 && isHuman(2)) {
+            return 2;
+        }
+        return 0;
+    }
+
+    public void forfeit(int player) {
+        if (isOver()) {
+            return;
+        }
+        result = 3 - player;
+        clock.stop();
+        if (journal != null) {
+            journal.ended(id, result);
+        }
+        LiveMatches.remove(this);
+        broadcast.ended(result);
+    }
+
+    public void abandon() {
+        if (journal != null) {
+            journal.ended(id, Journal.ABANDONED);
+        }
+        LiveMatches.remove(this);
+        broadcast.close();
+    }
+
+    public int getMoveCount() {
+        return moves;
+    }
+
+    public int getMove(int index) {
+        return history[index];
+    }
+
+    private void played(int move) {
+        if (moves == history.length) {
+            history = Arrays.copyOf(history, moves * 2);
+        }
+        history[moves++] = move;
+        turn++;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public int getMoveDir() {
+        return turn % 2 * 2 - 1;
+    }
+
+    public int currentPlayer() {
+        return getMoveDir() == -1 ? 1 : 2;
+    }
+
+    public boolean isOver() {
+        return result != 0;
+    }
+
+    public boolean isDraw() {
+        return result == Referee.DRAW;
+    }
+
+    public int winner() {
+        return result;
+    }
+
+    public void computerMove(int[] move) {
+        if (computer == null) {
+            computer = new ComputerPlayer(id);
+        }
+        computer.move(board, currentPlayer() == 1, referee.quietPliesLeft(), System.nanoTime(), move);
+    }
+
+    public Board getPosition() {
+        return new Board(board);
+    }
+
+    public int quietPliesLeft() {
+        return referee.quietPliesLeft();
+    }
+
+    public void snapshot(MatchChannel channel) throws IOException {
+        channel.snapshot(board.getGray(), board.getWhite(), board.getKings(), currentPlayer(), moves);
+    }
+
+    public boolean processMove(int fromX, int fromY, int newX, int newY, MatchChannel fromChannel, MatchChannel toChannel) throws IOException {
+        long startedAt = System.nanoTime();
+        int from = Board.square(fromX, fromY);
+        int to = Board.square(newX, newY);
+        PieceType pieceType = board.getPieceType(from);
+        if (pieceType == null) {
+            ServerStats.moveProcessed(false, System.nanoTime() - startedAt);
+            return false;
+        }
+
+        MoveType moveType = board.tryMove(from, to);
+        if (Math.signum(pieceType.moveDir) == Math.signum(getMoveDir())) {
+            ServerStats.moveProcessed(false, System.nanoTime() - startedAt);
+            if (fromChannel != null) {
+                fromChannel.moved(fromX, fromY, newX, newY, MoveType.NONE, moves);
+            }
+            return false;
+        }
+
+        ServerStats.moveProcessed(moveType != MoveType.NONE, System.nanoTime() - startedAt);
+        int move = Move.of(from, to, moveType == MoveType.KILL);
+        boolean irreversible = Referee.isIrreversible(board, move);
+        board.makeMove(from, to, moveType);
+        if (moveType != MoveType.NONE) {
+            played(move);
+            result = referee.played(board, currentPlayer() == 1, irreversible);
+            clock.stop();
+            if (journal != null) {
+                journal.moved(id, move);
+            }
+            broadcast.moved(fromX, fromY, newX, newY, moveType);
+        }
+
+        if (toChannel != null) {
+            toChannel.moved(fromX, fromY, newX, newY, moveType, moves);
+        }
+        if (fromChannel != null) {
+            fromChannel.moved(fromX, fromY, newX, newY, moveType, moves);
+        }
+        if (moveType != MoveType.NONE && !isOver() && SNAPSHOT_MOVES > 0 && moves % SNAPSHOT_MOVES == 0) {
+            if (toChannel != null) {
+                snapshot(toChannel);
+            }
+            if (fromChannel != null) {
+                snapshot(fromChannel);
+            }
+        }
+
+        if (isOver()) {
+            if (journal != null) {
+                journal.ended(id, winner());
+            }
+            LiveMatches.remove(this);
+            broadcast.ended(winner());
+            if (toChannel != null) {
+                toChannel.ended(winner());
+            }
+            if (fromChannel != null) {
+                fromChannel.ended(winner());
+            }
+        }
+
+        return moveType != MoveType.NONE;
+    }
+}
@@ -0,0 +1,21 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+
+public interface MatchChannel {
+    void joined(int player) throws IOException;
+
+    void ping() throws IOException;
+
+    void moved(int fromX, int fromY, int newX, int newY, MoveType moveType, int sequence) throws IOException;
+
+    void ended(int winner) throws IOException;
+
+    void session(long token) throws IOException;
+
+    void clock(int player, long moveMillis, long player1Millis, long player2Millis) throws IOException;
+
+    void snapshot(int gray, int white, int kings, int player, int moves) throws IOException;
+
+    void flush() throws IOException;
+}
@@ -0,0 +1,162 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+public class Matchmaker {
+    private static final int HANDSHAKE_TIMEOUT = 10_000;
+
+    private final ThreadFactory threadFactory;
+    private final ExecutorService handshakes;
+    private final Queue<PlayerConnection> waiting = new ConcurrentLinkedQueue<>();
+    private final Semaphore arrivals = new Semaphore(0);
+    private final Sessions<PlayerConnection> sessions = new Sessions<>(PlayerConnection::close);
+    private final Thread pairing;
+
+    public Matchmaker(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+        for (Match match : Recovery.recover(Journal.shared())) {
+            sessions.park(match);
+        }
+        handshakes = Executors.newCachedThreadPool(threadFactory);
+        pairing = new Thread(this::pair, "matchmaker");
+        pairing.setDaemon(true);
+        pairing.start();
+    }
+
+    public void accepted(Socket socket) {
+        long acceptedAt = System.nanoTime();
+        handshakes.execute(() -> handshake(socket, acceptedAt));
+    }
+
+    private void handshake(Socket socket, long acceptedAt) {
+        try {
+            PlayerConnection player = new PlayerConnection(socket, acceptedAt);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+            Handshake handshake = player.readHandshake();
+            socket.setSoTimeout(0);
+            if (handshake == null) {
+                player.close();
+                return;
+            }
+
+            if (handshake.isWait()) {
+                ServerStats.waiting(1);
+                waiting.add(player);
+                arrivals.release();
+            } else if (handshake.isStats()) {
+                player.sendLine(ServerStats.describe());
+                player.close();
+            } else if (handshake.isList()) {
+                player.sendLine(LiveMatches.describe());
+                player.close();
+            } else if (handshake.isResume()) {
+                resume(player, handshake.token());
+            } else if (handshake.isWatch()) {
+                watch(player, handshake.matchId());
+            } else {
+                player.paired();
+                start(new Match(1), player, null);
+            }
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void pair() {
+        PlayerConnection first = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                arrivals.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            PlayerConnection player = waiting.poll();
+            if (player == null) {
+                continue;
+            }
+            if (player.isClosed()) {
+                ServerStats.waiting(-1);
+                continue;
+            }
+            if (first == null || first.isClosed()) {
+                if (first != null) {
+                    ServerStats.waiting(-1);
+                }
+                first = player;
+                continue;
+            }
+
+            ServerStats.waiting(-2);
+
+            first.paired();
+            player.paired();
+            start(new Match(3), first, player);
+            first = null;
+        }
+    }
+
+    private void resume(PlayerConnection player, long token) {
+        ParkedMatch<PlayerConnection> parked = sessions.find(token);
+        if (parked == null) {
+            player.close();
+            return;
+        }
+
+        PlayerConnection previous;
+        boolean complete;
+        synchronized (parked) {
+            previous = parked.attach(parked.getMatch().playerOf(token), player);
+            complete = parked.isComplete() && sessions.unpark(parked);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+        if (complete) {
+            PlayerConnection player1 = parked.getPlayer(1);
+            PlayerConnection player2 = parked.getPlayer(2);
+            player1.paired();
+            if (player2 != null) {
+                player2.paired();
+            }
+            start(parked.getMatch(), player1, player2);
+        }
+    }
+
+    private void watch(PlayerConnection player, long id) {
+        Match match = LiveMatches.find(id);
+        if (match == null) {
+            player.close();
+            return;
+        }
+
+        SpectatorConnection spectator = new SpectatorConnection(player);
+        match.getBroadcast().subscribe(spectator);
+        spectator.run();
+    }
+
+    private void start(Match match, PlayerConnection player1, PlayerConnection player2) {
+        try {
+            ClientHandler clientHandler = new ClientHandler(match, player1, player2, sessions);
+            Thread thread = threadFactory.newThread(clientHandler);
+            thread.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void close() {
+        pairing.interrupt();
+        handshakes.shutdownNow();
+    }
+}
@@ -0,0 +1,30 @@
+package com.bedi.warcaby;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+public class MetricsServer {
+    public static final String PATH = "/metrics";
+
+    public static HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext(PATH, MetricsServer::handle);
+        server.start();
+        Log.info("Metrics on http://localhost:" + server.getAddress().getPort() + PATH);
+        return server;
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        byte[] body = ServerStats.metrics().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bedi.warcaby;
+
+public class Move {
+    private static final int KILL = 1 << 10;
+
+    public static int of(int from, int to, boolean kill) {
+        return from | to << 5 | (kill ? KILL : 0);
+    }
+
+    public static int from(int move) {
+        return move & 31;
+    }
+
+    public static int to(int move) {
+        return move >>> 5 & 31;
+    }
+
+    public static boolean isKill(int move) {
+        return (move & KILL) != 0;
+    }
+
+    public static MoveType type(int move) {
+        return isKill(move) ? MoveType.KILL : MoveType.NORMAL;
+    }
+}
@@ -0,0 +1,64 @@
+package com.bedi.warcaby;
+
+import java.util.Arrays;
+
+public class MoveTables {
+    public static final int DIRECTIONS = 4;
+    public static final int GRAY_PROMOTION = 0xF0000000;
+    public static final int WHITE_PROMOTION = 0x0000000F;
+
+    private static final int[] DX = {-1, 1, -1, 1};
+    private static final int[] DY = {-1, -1, 1, 1};
+
+    private static final int[] STEP = new int[Board.SQUARES * DIRECTIONS];
+    private static final int[] JUMP = new int[Board.SQUARES * DIRECTIONS];
+    private static final byte[] RELATION = new byte[Board.SQUARES * Board.SQUARES];
+
+    static {
+        Arrays.fill(RELATION, (byte) -1);
+        for (int square = 0; square < Board.SQUARES; square++) {
+            int x = Board.squareX(square);
+            int y = Board.squareY(square);
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                int step = Board.square(x + DX[direction], y + DY[direction]);
+                int jump = Board.square(x + 2 * DX[direction], y + 2 * DY[direction]);
+                STEP[square * DIRECTIONS + direction] = step;
+                JUMP[square * DIRECTIONS + direction] = jump;
+                if (step >= 0) {
+                    RELATION[square * Board.SQUARES + step] = (byte) direction;
+                }
+                if (jump >= 0) {
+                    RELATION[square * Board.SQUARES + jump] = (byte) (DIRECTIONS + direction);
+                }
+            }
+        }
+    }
+
+    public static int step(int square, int direction) {
+        return STEP[square * DIRECTIONS + direction];
+    }
+
+    public static int jump(int square, int direction) {
+        return JUMP[square * DIRECTIONS + direction];
+    }
+
+    public static int relation(int from, int to) {
+        return RELATION[from * Board.SQUARES + to];
+    }
+
+    public static boolean isJump(int relation) {
+        return relation >= DIRECTIONS;
+    }
+
+    public static int direction(int relation) {
+        return relation & (DIRECTIONS - 1);
+    }
+
+    public static int stepDirections(boolean gray, boolean king) {
+        return king ? 0b1111 : gray ? 0b1100 : 0b0011;
+    }
+
+    public static int promotionRow(boolean gray) {
+        return gray ? GRAY_PROMOTION : WHITE_PROMOTION;
+    }
+}
@@ -0,0 +1,387 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class NioConnection implements MatchChannel, Broadcast.Subscriber {
+    private static final int MAX_LINE_LENGTH = 256;
+    private static final int OUTBOUND_CAPACITY = 4096;
+
+    private final NioServer server;
+    private final SocketChannel channel;
+    private final EventLoop loop;
+    private final ByteBuffer outbound = ByteBuffer.allocate(OUTBOUND_CAPACITY);
+    private final byte[] frame = new byte[BinaryCodec.MAX_FRAME_LENGTH];
+    private final int[] move = new int[4];
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+
+    private SelectionKey key;
+    private StringBuilder line;
+    private int frameLength = 0;
+    private Handshake handshake;
+    private boolean overflowed = false;
+    private boolean closing = false;
+    private volatile NioMatch match;
+
+    public NioConnection(NioServer server, SocketChannel channel, EventLoop loop) {
+        this.server = server;
+        this.channel = channel;
+        this.loop = loop;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public boolean isBinary() {
+        return handshake.binary();
+    }
+
+    public EventLoop getLoop() {
+        return loop;
+    }
+
+    public Handshake getHandshake() {
+        return handshake;
+    }
+
+    public void setMatch(NioMatch match) {
+        this.match = match;
+    }
+
+    public void register() {
+        try {
+            key = channel.register(loop.selector(), SelectionKey.OP_READ, this);
+        } catch (ClosedChannelException e) {
+            close();
+        }
+    }
+
+    public void handle(SelectionKey key) {
+        try {
+            if (key.isValid() && key.isReadable()) {
+                read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flushQuietly();
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+        }
+    }
+
+    private void read() throws IOException {
+        ByteBuffer buffer = loop.readBuffer();
+        buffer.clear();
+        if (channel.read(buffer) < 0) {
+            close();
+            return;
+        }
+        buffer.flip();
+
+        while (buffer.hasRemaining() && channel.isOpen()) {
+            byte b = buffer.get();
+            if (handshake != null && handshake.binary()) {
+                readFrame(b);
+            } else {
+                readLine((char) b);
+            }
+        }
+    }
+
+    private void readLine(char c) {
+        if (c == '\n') {
+            String message = line == null ? "" : line.toString();
+            line = null;
+            onLine(message);
+        } else if (c != '\r') {
+            if (line == null) {
+                line = new StringBuilder();
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                close();
+                return;
+            }
+            line.append(c);
+        }
+    }
+
+    private void onLine(String message) {
+        if (handshake == null) {
+            handshake = Handshake.parse(message);
+            server.handshake(this, handshake);
+        } else if (match != null && message.equals(Coder.SYNC)) {
+            match.submitSync(this);
+        } else if (match != null) {
+            Coder.decode(message, move);
+            match.submitMove(this, move);
+        }
+    }
+
+    private void readFrame(byte b) {
+        frame[frameLength++] = b;
+        if (frame[0] == BinaryCodec.SYNC) {
+            frameLength = 0;
+            if (match != null) {
+                match.submitSync(this);
+            }
+            return;
+        }
+        if (frame[0] != BinaryCodec.MOVE) {
+            close();
+            return;
+        }
+        if (frameLength < BinaryCodec.frameLength(BinaryCodec.MOVE)) {
+            return;
+        }
+        frameLength = 0;
+
+        int from = frame[1] & 0xFF;
+        int to = frame[2] & 0xFF;
+        move[0] = BinaryCodec.x(from);
+        move[1] = BinaryCodec.y(from);
+        move[2] = BinaryCodec.x(to);
+        move[3] = BinaryCodec.y(to);
+        if (match != null) {
+            match.submitMove(this, move);
+        }
+    }
+
+    private boolean hasRoom() {
+        if (outbound.remaining() < MAX_LINE_LENGTH) {
+            overflowed = true;
+        }
+        if (!overflowed) {
+            ServerStats.queued();
+        }
+        return !overflowed;
+    }
+
+    private void putLine(String message) {
+        for (int i = 0; i < message.length(); i++) {
+            outbound.put((byte) message.charAt(i));
+        }
+        outbound.put((byte) '\n');
+    }
+
+    private void scheduleFlush() {
+        if (overflowed) {
+            close();
+        } else if (loop.inEventLoop()) {
+            flushQuietly();
+        } else if (flushPending.compareAndSet(false, true)) {
+            loop.execute(() -> {
+                flushPending.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            writeOutbound();
+        } catch (IOException | RuntimeException e) {
+            closeNow();
+            return;
+        }
+        if (closing && isDrained()) {
+            closeNow();
+        }
+    }
+
+    private synchronized boolean isDrained() {
+        return outbound.position() == 0;
+    }
+
+    private synchronized void writeOutbound() throws IOException {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        outbound.flip();
+        channel.write(outbound);
+        ServerStats.written(startedAt);
+        outbound.compact();
+        if (!key.isValid()) {
+            return;
+        }
+        key.interestOps(outbound.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    public void send(String message) {
+        synchronized (this) {
+            if (hasRoom()) {
+                putLine(message);
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public void joined(int player) {
+        synchronized (this) {
+            if (hasRoom()) {
+                if (handshake.binary()) {
+                    BinaryCodec.putPlayer(outbound, player);
+                } else {
+                    putLine(String.valueOf(player));
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public void ping() {
+        synchronized (this) {
+            if (hasRoom()) {
+                if (handshake.binary()) {
+                    BinaryCodec.putPing(outbound);
+                } else {
+                    putLine(Coder.PING);
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public void moved(int fromX, int fromY, int newX, int newY, MoveType moveType, int sequence) {
+        synchronized (this) {
+            if (hasRoom()) {
+                if (handshake.binary()) {
+                    BinaryCodec.putResult(outbound, fromX, fromY, newX, newY, moveType);
+                    if (handshake.sync()) {
+                        BinaryCodec.putSequence(outbound, sequence);
+                    }
+                } else if (handshake.sync()) {
+                    putLine(Coder.encode(fromX, fromY, newX, newY, moveType, sequence));
+                } else {
+                    putLine(Coder.encode(fromX, fromY, newX, newY, moveType));
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public void snapshot(int gray, int white, int kings, int player, int moves) {
+        if (!handshake.sync()) {
+            return;
+        }
+        synchronized (this) {
+            if (hasRoom()) {
+                if (handshake.binary()) {
+                    BinaryCodec.putSnapshot(outbound, gray, white, kings, player, moves);
+                } else {
+                    putLine(Coder.encodeSnapshot(gray, white, kings, player, moves));
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public void ended(int winner) {
+        synchronized (this) {
+            if (hasRoom()) {
+                if (handshake.binary()) {
+                    BinaryCodec.putEnd(outbound, winner);
+                } else {
+                    putLine(Coder.encodeEnd(winner));
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public void session(long token) {
+        synchronized (this) {
+            if (hasRoom()) {
+                if (handshake.binary()) {
+                    BinaryCodec.putSession(outbound, token);
+                } else {
+                    putLine(Coder.encodeSession(token));
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public void clock(int player, long moveMillis, long player1Millis, long player2Millis) {
+        synchronized (this) {
+            if (hasRoom()) {
+                if (handshake.binary()) {
+                    BinaryCodec.putClock(outbound, player, moveMillis, player1Millis, player2Millis);
+                } else {
+                    putLine(Coder.encodeClock(player, moveMillis, player1Millis, player2Millis));
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public boolean offer(byte[] frame) {
+        synchronized (this) {
+            if (overflowed || outbound.remaining() < frame.length) {
+                return false;
+            }
+            outbound.put(frame);
+            ServerStats.queued();
+        }
+        scheduleFlush();
+        return true;
+    }
+
+    @Override
+    public void flush() {
+        scheduleFlush();
+    }
+
+    @Override
+    public void finish() {
+        closeAfterFlush();
+    }
+
+    public void closeAfterFlush() {
+        loop.execute(() -> {
+            closing = true;
+            flushQuietly();
+        });
+    }
+
+    public void close() {
+        if (loop.inEventLoop()) {
+            closeNow();
+        } else {
+            loop.execute(this::closeNow);
+        }
+    }
+
+    private void closeNow() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (key != null) {
+                key.cancel();
+            }
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (match != null) {
+            match.abandon();
+        }
+    }
+}
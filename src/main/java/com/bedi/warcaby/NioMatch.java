@@ -0,0 +1,222 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+public class NioMatch {
+    private final Match match;
+    private final NioConnection connection1;
+    private final NioConnection connection2;
+    private final Executor computer;
+    private final Sessions<NioConnection> sessions;
+    private final GameRooms.Partition partition;
+    private final ComputerPlayer computerPlayer;
+    private boolean abandoned = false;
+    private boolean finished = false;
+    private long startedAt;
+
+    public NioMatch(Match match, NioConnection connection1, NioConnection connection2, Executor computer, Sessions<NioConnection> sessions,
+                    GameRooms.Partition partition) {
+        this.match = match;
+        this.connection1 = connection1;
+        this.connection2 = connection2;
+        this.computer = computer;
+        this.sessions = sessions;
+        this.partition = partition;
+        this.computerPlayer = new ComputerPlayer(match.getId());
+        connection1.setMatch(this);
+        if (connection2 != null) {
+            connection2.setMatch(this);
+        }
+    }
+
+    public void start() {
+        partition.execute(this::begin);
+    }
+
+    private void begin() {
+        startedAt = ServerStats.matchStarted();
+        join(connection1, 1);
+        if (connection2 != null) {
+            join(connection2, 2);
+        }
+        nextTurn();
+    }
+
+    private void join(NioConnection connection, int player) {
+        Handshake handshake = connection.getHandshake();
+        connection.joined(player);
+        if (handshake.session()) {
+            connection.session(match.getToken(player));
+        }
+        if (handshake.sync()) {
+            snapshot(connection);
+        } else if (handshake.isResume()) {
+            for (int i = 0; i < match.getMoveCount(); i++) {
+                int move = match.getMove(i);
+                int from = Move.from(move);
+                int to = Move.to(move);
+                connection.moved(Board.squareX(from), Board.squareY(from), Board.squareX(to), Board.squareY(to), Move.type(move), i + 1);
+            }
+        }
+    }
+
+    public void submitSync(NioConnection connection) {
+        connection.getLoop().submit(partition, () -> {
+            if (!abandoned) {
+                snapshot(connection);
+            }
+        });
+    }
+
+    private void snapshot(NioConnection connection) {
+        try {
+            match.snapshot(connection);
+        } catch (IOException e) {
+            connection.close();
+        }
+    }
+
+    public void submitMove(NioConnection connection, int[] move) {
+        int fromX = move[0];
+        int fromY = move[1];
+        int newX = move[2];
+        int newY = move[3];
+        connection.getLoop().submit(partition, () -> onMove(connection, fromX, fromY, newX, newY));
+    }
+
+    private void onMove(NioConnection connection, int fromX, int fromY, int newX, int newY) {
+        if (abandoned || match.isOver() || connection != connection(match.currentPlayer())) {
+            return;
+        }
+        if (Log.isEnabled(Log.Level.DEBUG)) {
+            Log.debug(Coder.encodeMove(fromX, fromY, newX, newY));
+        }
+
+        try {
+            match.processMove(fromX, fromY, newX, newY, connection, opponent(connection));
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            return;
+        }
+        nextTurn();
+    }
+
+    private void nextTurn() {
+        if (match.isOver()) {
+            finish();
+            closeAfterFlush();
+            return;
+        }
+
+        int player = match.currentPlayer();
+        NioConnection mover = connection(player);
+        if (mover != null) {
+            match.getClock().start(player, () -> partition.execute(() -> expired(player)));
+            sendClock();
+            mover.ping();
+        } else {
+            Board position = match.getPosition();
+            int quietPliesLeft = match.quietPliesLeft();
+            int moveCount = match.getMoveCount();
+            long requestedAt = System.nanoTime();
+            computer.execute(() -> computerMove(position, player == 1, quietPliesLeft, moveCount, requestedAt));
+        }
+    }
+
+    private void computerMove(Board position, boolean grayToMove, int quietPliesLeft, int moveCount, long requestedAt) {
+        int[] move = new int[4];
+        computerPlayer.move(position, grayToMove, quietPliesLeft, requestedAt, move);
+        partition.execute(() -> computerMoved(move, moveCount));
+    }
+
+    private void computerMoved(int[] move, int moveCount) {
+        if (abandoned || match.isOver() || match.getMoveCount() != moveCount) {
+            return;
+        }
+        try {
+            match.processMove(move[0], move[1], move[2], move[3], null, opponent(null));
+        } catch (IOException e) {
+            abandonNow();
+            return;
+        }
+        nextTurn();
+    }
+
+    private void sendClock() {
+        Clock clock = match.getClock();
+        for (int player = 1; player <= 2; player++) {
+            NioConnection connection = connection(player);
+            if (connection != null && connection.getHandshake().clock()) {
+                connection.clock(clock.getRunning(), clock.moveMillis(), clock.gameMillis(1), clock.gameMillis(2));
+            }
+        }
+    }
+
+    private void expired(int player) {
+        if (abandoned || match.isOver() || match.currentPlayer() != player) {
+            return;
+        }
+        match.forfeit(player);
+        abandoned = true;
+        finish();
+        connection1.ended(match.winner());
+        if (connection2 != null) {
+            connection2.ended(match.winner());
+        }
+        closeAfterFlush();
+    }
+
+    private void finish() {
+        if (!finished) {
+            finished = true;
+            ServerStats.matchFinished(startedAt);
+        }
+    }
+
+    private void closeAfterFlush() {
+        connection1.closeAfterFlush();
+        if (connection2 != null) {
+            connection2.closeAfterFlush();
+        }
+    }
+
+    private NioConnection connection(int player) {
+        return player == 1 ? connection1 : connection2;
+    }
+
+    private NioConnection opponent(NioConnection connection) {
+        return connection == connection1 ? connection2 : connection1;
+    }
+
+    public void abandon() {
+        partition.execute(this::abandonNow);
+    }
+
+    private void abandonNow() {
+        if (abandoned) {
+            return;
+        }
+        abandoned = true;
+        match.getClock().stop();
+        finish();
+        if (match.isOver()) {
+            closeAfterFlush();
+            return;
+        }
+
+        connection1.close();
+        if (connection2 != null) {
+            connection2.close();
+        }
+        if (isResumable(connection1) || isResumable(connection2)) {
+            sessions.park(match);
+        } else {
+            match.abandon();
+        }
+    }
+
+    private static boolean isResumable(NioConnection connection) {
+        return connection != null && (connection.getHandshake().session() || connection.getHandshake().isResume());
+    }
+}
@@ -0,0 +1,129 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class NioServer implements Runnable {
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final ExecutorService computer = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final Sessions<NioConnection> sessions = new Sessions<>(NioConnection::close);
+    private final GameRooms rooms = new GameRooms(Integer.getInteger("warcaby.rooms.partitions", Runtime.getRuntime().availableProcessors()));
+    private NioConnection waiting = null;
+    private int nextLoop = 0;
+
+    public NioServer(ServerSocketChannel serverChannel, int threads) throws IOException {
+        this.serverChannel = serverChannel;
+        for (Match match : Recovery.recover(Journal.shared())) {
+            sessions.park(match);
+        }
+        loops = new EventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new EventLoop();
+        }
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < loops.length; i++) {
+            Thread thread = new Thread(loops[i], "event-loop-" + i);
+            thread.start();
+        }
+
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                SocketOptions.apply(channel);
+
+                EventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                NioConnection connection = new NioConnection(this, channel, loop);
+                loop.execute(connection::register);
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    public void handshake(NioConnection connection, Handshake handshake) {
+        NioMatch match;
+        if (handshake.isStats()) {
+            connection.send(ServerStats.describe());
+            connection.closeAfterFlush();
+            return;
+        } else if (handshake.isList()) {
+            connection.send(LiveMatches.describe());
+            connection.closeAfterFlush();
+            return;
+        } else if (handshake.isWatch()) {
+            Match watched = LiveMatches.find(handshake.matchId());
+            if (watched == null) {
+                connection.closeAfterFlush();
+            } else {
+                watched.getBroadcast().subscribe(connection);
+            }
+            return;
+        } else if (handshake.isWait()) {
+            synchronized (this) {
+                if (waiting == null || !waiting.isOpen()) {
+                    if (waiting == null) {
+                        ServerStats.waiting(1);
+                    }
+                    waiting = connection;
+                    return;
+                }
+                ServerStats.waiting(-1);
+                match = newMatch(new Match(3), waiting, connection);
+                waiting = null;
+            }
+        } else if (handshake.isResume()) {
+            match = resume(connection, handshake.token());
+            if (match == null) {
+                return;
+            }
+        } else {
+            match = newMatch(new Match(1), connection, null);
+        }
+        match.start();
+    }
+
+    private NioMatch newMatch(Match match, NioConnection connection1, NioConnection connection2) {
+        return new NioMatch(match, connection1, connection2, computer, sessions, rooms.partition(match.getId()));
+    }
+
+    private NioMatch resume(NioConnection connection, long token) {
+        ParkedMatch<NioConnection> parked = sessions.find(token);
+        if (parked == null) {
+            connection.close();
+            return null;
+        }
+
+        NioConnection previous;
+        boolean complete;
+        synchronized (parked) {
+            previous = parked.attach(parked.getMatch().playerOf(token), connection);
+            complete = parked.isComplete() && sessions.unpark(parked);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+        return complete ? newMatch(parked.getMatch(), parked.getPlayer(1), parked.getPlayer(2)) : null;
+    }
+
+    public void close() {
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (EventLoop loop : loops) {
+            loop.close();
+        }
+        computer.shutdownNow();
+        rooms.close();
+    }
+}
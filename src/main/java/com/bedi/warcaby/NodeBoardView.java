@@ -0,0 +1,69 @@
+package com.bedi.warcaby;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+
+public class NodeBoardView implements BoardView {
+    private final Tile[][] board = new Tile[ChessboardClient.WIDTH][ChessboardClient.HEIGHT];
+    private final Group tileGroup = new Group();
+    private final Group pieceGroup = new Group();
+    private final Group root = new Group(tileGroup, pieceGroup);
+    private final MoveHandler handler;
+
+    public NodeBoardView(MoveHandler handler) {
+        this.handler = handler;
+        for (int y = 0; y < ChessboardClient.HEIGHT; y++) {
+            for (int x = 0; x < ChessboardClient.WIDTH; x++) {
+                Tile tile = new Tile((x + y) % 2 == 0, x, y);
+                board[x][y] = tile;
+                tileGroup.getChildren().add(tile);
+            }
+        }
+    }
+
+    @Override
+    public Node getNode() {
+        return root;
+    }
+
+    @Override
+    public void show(Board position) {
+        for (int square = 0; square < Board.SQUARES; square++) {
+            int x = Board.squareX(square);
+            int y = Board.squareY(square);
+            Tile tile = board[x][y];
+            Piece piece = tile.getPiece();
+            PieceType pieceType = position.getPieceType(square);
+
+            if (piece != null && piece.getPieceType() != pieceType) {
+                pieceGroup.getChildren().remove(piece);
+                tile.setPiece(null);
+                piece = null;
+            }
+            if (piece == null && pieceType != null) {
+                piece = makePiece(pieceType, x, y);
+                tile.setPiece(piece);
+                pieceGroup.getChildren().add(piece);
+            } else if (piece != null) {
+                piece.move(x, y);
+            }
+        }
+    }
+
+    private Piece makePiece(PieceType pieceType, int x, int y) {
+        boolean king = pieceType == PieceType.GRAY_SUP || pieceType == PieceType.WHITE_SUP;
+        Piece piece = new Piece(switch (pieceType) {
+            case GRAY_SUP -> PieceType.GRAY;
+            case WHITE_SUP -> PieceType.WHITE;
+            default -> pieceType;
+        }, x, y);
+        if (king) {
+            piece.promote();
+        }
+
+        piece.setOnMouseReleased(e -> handler.requested(Coder.pixelToBoard(piece.getOldX()), Coder.pixelToBoard(piece.getOldY()),
+                Coder.pixelToBoard(piece.getLayoutX()), Coder.pixelToBoard(piece.getLayoutY())));
+
+        return piece;
+    }
+}
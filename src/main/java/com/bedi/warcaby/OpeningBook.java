@@ -0,0 +1,99 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class OpeningBook {
+    private static final String FILE = System.getProperty("warcaby.book.file");
+    private static final long UNLIMITED = 3_600_000;
+    private static OpeningBook shared;
+
+    private final PositionTable table;
+
+    public OpeningBook(PositionTable table) {
+        this.table = table;
+    }
+
+    public static synchronized OpeningBook shared() {
+        if (shared == null && FILE != null) {
+            try {
+                shared = new OpeningBook(PositionTable.open(Path.of(FILE)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return shared;
+    }
+
+    public int getPlies() {
+        return table.parameter();
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    public int bestMove(Board board, boolean grayToMove) {
+        short move = table.get(Zobrist.position(board, grayToMove));
+        if (move == PositionTable.MISSING) {
+            return -1;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int own = grayToMove ? board.getGray() : board.getWhite();
+        if ((own & (1 << from)) == 0 || board.tryMove(from, to) != Move.type(move)) {
+            return -1;
+        }
+        return move;
+    }
+
+    public record Entry(Board board, boolean grayToMove, long key, int move) {
+    }
+
+    public static List<Entry> build(int plies, int depth) {
+        Search search = new Search(UNLIMITED, depth, new TranspositionTable(64));
+        List<Entry> entries = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        List<Board> frontier = List.of(new Board());
+        int[] moves = new int[Board.MAX_MOVES];
+
+        for (int ply = 0; ply < plies; ply++) {
+            boolean grayToMove = ply % 2 == 1;
+            List<Board> next = new ArrayList<>();
+            for (Board board : frontier) {
+                long key = Zobrist.position(board, grayToMove);
+                if (!seen.add(key)) {
+                    continue;
+                }
+                int best = search.bestMove(board, grayToMove);
+                if (best < 0) {
+                    continue;
+                }
+                entries.add(new Entry(board, grayToMove, key, best));
+
+                int count = board.generateMoves(grayToMove, moves);
+                for (int i = 0; i < count; i++) {
+                    Board child = new Board(board);
+                    child.makeMove(moves[i]);
+                    next.add(child);
+                }
+            }
+            frontier = next;
+        }
+        return entries;
+    }
+
+    public static void write(Path path, List<Entry> entries, int plies) throws IOException {
+        long[] keys = new long[entries.size()];
+        short[] moves = new short[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            keys[i] = entries.get(i).key();
+            moves[i] = (short) entries.get(i).move();
+        }
+        PositionTable.write(path, keys, moves, entries.size(), plies);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bedi.warcaby;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+public class ParallelSearch {
+    public static final int DEFAULT_THREADS = Integer.getInteger("warcaby.ai.threadsPerMove", 1);
+
+    private final Search main;
+    private final Search[] helpers;
+    private final Future<?>[] futures;
+    private final AiScheduler scheduler;
+
+    public ParallelSearch() {
+        this(Search.DEFAULT_TIME_BUDGET, Search.DEFAULT_MAX_DEPTH, DEFAULT_THREADS, TranspositionTable.shared(), AiScheduler.shared());
+    }
+
+    public ParallelSearch(long timeBudgetMillis, int maxDepth, int threads, TranspositionTable table, AiScheduler scheduler) {
+        this.scheduler = scheduler;
+        main = new Search(timeBudgetMillis, maxDepth, table);
+        helpers = new Search[Math.max(1, threads) - 1];
+        futures = new Future<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(timeBudgetMillis, maxDepth, table);
+        }
+    }
+
+    public Search getMain() {
+        return main;
+    }
+
+    public int bestMove(Board board, boolean grayToMove) {
+        return bestMove(board, grayToMove, System.nanoTime());
+    }
+
+    public int bestMove(Board board, boolean grayToMove, long requestedAt) {
+        long deadline = requestedAt + main.getTimeBudgetNanos();
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0 || !scheduler.acquire(remaining)) {
+            return main.bestMove(board, grayToMove, 1, 1);
+        }
+
+        int granted = scheduler.tryAcquire(helpers.length);
+        for (int i = 0; i < granted; i++) {
+            Search helper = helpers[i];
+            int firstDepth = 1 + (i + 1) % 2;
+            helper.reset();
+            futures[i] = scheduler.submit(() -> helper.bestMove(board, grayToMove, firstDepth, helper.getMaxDepth(), deadline));
+        }
+
+        try {
+            return main.bestMove(board, grayToMove, 1, main.getMaxDepth(), deadline);
+        } finally {
+            for (int i = 0; i < granted; i++) {
+                helpers[i].stop();
+            }
+            for (int i = 0; i < granted; i++) {
+                try {
+                    futures[i].get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                }
+                futures[i] = null;
+            }
+            scheduler.release(1 + granted);
+        }
+    }
+}
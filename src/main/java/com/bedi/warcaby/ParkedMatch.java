@@ -0,0 +1,33 @@
+package com.bedi.warcaby;
+
+public class ParkedMatch<C> {
+    private final Match match;
+    private C player1;
+    private C player2;
+
+    public ParkedMatch(Match match) {
+        this.match = match;
+    }
+
+    public Match getMatch() {
+        return match;
+    }
+
+    public synchronized C getPlayer(int player) {
+        return player == 1 ? player1 : player2;
+    }
+
+    public synchronized C attach(int player, C connection) {
+        C previous = getPlayer(player);
+        if (player == 1) {
+            player1 = connection;
+        } else {
+            player2 = connection;
+        }
+        return previous;
+    }
+
+    public synchronized boolean isComplete() {
+        return (player1 != null || !match.isHuman(1)) && (player2 != null || !match.isHuman(2));
+    }
+}
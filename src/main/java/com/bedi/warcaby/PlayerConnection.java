@@ -0,0 +1,156 @@
+package com.bedi.warcaby;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class PlayerConnection {
+    private static final int MAX_HANDSHAKE_LENGTH = 256;
+
+    private final Socket socket;
+    private final InputStream inputStream;
+    private final OutputStream outputStream;
+    private BufferedReader bufferedReader;
+    private Handshake handshake;
+    private MatchChannel channel;
+
+    private final long acceptedAt;
+    private long handshakeAt;
+    private long pairedAt;
+    private boolean pinged = false;
+
+    public PlayerConnection(Socket socket, long acceptedAt) throws IOException {
+        this.socket = socket;
+        this.acceptedAt = acceptedAt;
+        SocketOptions.apply(socket);
+        inputStream = new BufferedInputStream(socket.getInputStream());
+        outputStream = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    public Socket getSocket() {
+        return socket;
+    }
+
+    public Handshake getHandshake() {
+        return handshake;
+    }
+
+    public MatchChannel getChannel() {
+        return channel;
+    }
+
+    public boolean isConnected() {
+        return socket.isConnected();
+    }
+
+    public boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    public Handshake readHandshake() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = inputStream.read()) != '\n') {
+            if (c == -1) {
+                return null;
+            }
+            if (line.length() >= MAX_HANDSHAKE_LENGTH) {
+                throw new IOException("Handshake too long");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+
+        handshake = Handshake.parse(line.toString());
+        if (handshake.binary()) {
+            channel = new BinaryChannel(outputStream, handshake.sync());
+        } else {
+            bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
+            channel = new WriterChannel(new BufferedWriter(new OutputStreamWriter(outputStream)), handshake.sync());
+        }
+        handshaken();
+        return handshake;
+    }
+
+    public int readMessage(int[] move) throws IOException {
+        if (!handshake.binary()) {
+            String message = bufferedReader.readLine();
+            if (message == null) {
+                return -1;
+            }
+            if (message.equals(Coder.SYNC)) {
+                return BinaryCodec.SYNC;
+            }
+            try {
+                Coder.decode(message, move);
+            } catch (NumberFormatException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            return BinaryCodec.MOVE;
+        }
+
+        int opcode = inputStream.read();
+        if (opcode == BinaryCodec.SYNC) {
+            return BinaryCodec.SYNC;
+        }
+        int from = inputStream.read();
+        int to = inputStream.read();
+        if (to == -1) {
+            return -1;
+        }
+        if (opcode != BinaryCodec.MOVE) {
+            throw new IOException("Unexpected frame " + opcode);
+        }
+        move[0] = BinaryCodec.x(from);
+        move[1] = BinaryCodec.y(from);
+        move[2] = BinaryCodec.x(to);
+        move[3] = BinaryCodec.y(to);
+        return BinaryCodec.MOVE;
+    }
+
+    public void sendLine(String message) throws IOException {
+        outputStream.write((message + "\n").getBytes(StandardCharsets.US_ASCII));
+        outputStream.flush();
+    }
+
+    public void write(byte[] frame) throws IOException {
+        outputStream.write(frame);
+    }
+
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    private void handshaken() {
+        handshakeAt = System.nanoTime();
+        ServerStats.handshakeLatency().record(handshakeAt - acceptedAt);
+    }
+
+    public void paired() {
+        pairedAt = System.nanoTime();
+        ServerStats.pairingLatency().record(pairedAt - handshakeAt);
+    }
+
+    public void pinged() {
+        if (!pinged) {
+            pinged = true;
+            ServerStats.firstPingLatency().record(System.nanoTime() - pairedAt);
+        }
+    }
+
+    public void shutdownInput() {
+        try {
+            socket.shutdownInput();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
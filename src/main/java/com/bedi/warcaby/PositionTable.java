@@ -0,0 +1,89 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PositionTable {
+    public static final short MISSING = 0;
+
+    private static final int MAGIC = 0x57524342;
+    private static final int HEADER = 4 * Integer.BYTES;
+    private static final int ENTRY = Integer.BYTES + Short.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int size;
+    private final int parameter;
+
+    private PositionTable(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a position table");
+        }
+        capacity = buffer.getInt(4);
+        size = buffer.getInt(8);
+        parameter = buffer.getInt(12);
+    }
+
+    public static PositionTable open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new PositionTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void write(Path path, long[] keys, short[] values, int count, int parameter) throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(16, count + count / 3) * 2 - 1);
+        ByteBuffer table = ByteBuffer.allocate(HEADER + capacity * ENTRY);
+        table.putInt(MAGIC).putInt(capacity).putInt(count).putInt(parameter);
+        for (int i = 0; i < count; i++) {
+            if (values[i] == MISSING) {
+                throw new IllegalArgumentException("Cannot store an empty value");
+            }
+            int slot = (int) keys[i] & (capacity - 1);
+            while (table.getShort(offset(slot) + Integer.BYTES) != MISSING) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table.putInt(offset(slot), fingerprint(keys[i]));
+            table.putShort(offset(slot) + Integer.BYTES, values[i]);
+        }
+
+        table.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (table.hasRemaining()) {
+                channel.write(table);
+            }
+        }
+    }
+
+    public short get(long key) {
+        int fingerprint = fingerprint(key);
+        int slot = (int) key & (capacity - 1);
+        while (true) {
+            short value = buffer.getShort(offset(slot) + Integer.BYTES);
+            if (value == MISSING || buffer.getInt(offset(slot)) == fingerprint) {
+                return value;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int parameter() {
+        return parameter;
+    }
+
+    private static int offset(int slot) {
+        return HEADER + slot * ENTRY;
+    }
+
+    private static int fingerprint(long key) {
+        return (int) (key >>> 32);
+    }
+}
@@ -0,0 +1,27 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Recovery {
+    public static List<Match> recover(Journal journal) {
+        List<Match> matches = new ArrayList<>();
+        if (journal == null) {
+            return matches;
+        }
+
+        long start = System.nanoTime();
+        try {
+            JournalReader.games(journal.getDirectory(), game -> {
+                if (game.isOpen()) {
+                    matches.add(new Match(game));
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        Log.info("Recovered " + matches.size() + " matches in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return matches;
+    }
+}
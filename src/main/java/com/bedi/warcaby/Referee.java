@@ -0,0 +1,74 @@
+package com.bedi.warcaby;
+
+import java.util.Arrays;
+
+public class Referee {
+    public static final int DRAW = 3;
+
+    private static final int REPETITIONS = Integer.getInteger("warcaby.draw.repetitions", 3);
+    private static final int QUIET_PLIES = Integer.getInteger("warcaby.draw.quietPlies", 50);
+
+    private final int[] moves = new int[Board.MAX_MOVES];
+    private long[] keys = new long[QUIET_PLIES + 1];
+    private int count = 0;
+    private int moveCount = 0;
+
+    public static boolean isIrreversible(Board board, int move) {
+        return Move.isKill(move) || (board.getKings() & (1 << Move.from(move))) == 0;
+    }
+
+    public int start(Board board, boolean grayToMove) {
+        count = 0;
+        return played(board, grayToMove, true);
+    }
+
+    public int played(Board board, boolean grayToMove, boolean irreversible) {
+        if (irreversible) {
+            count = 0;
+        }
+        long key = Zobrist.position(board, grayToMove);
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+        }
+        keys[count++] = key;
+
+        if (board.grayPieces() == 0) {
+            return 2;
+        } else if (board.whitePieces() == 0) {
+            return 1;
+        } else if ((moveCount = board.generateMoves(grayToMove, moves)) == 0) {
+            return grayToMove ? 2 : 1;
+        } else if (QUIET_PLIES > 0 && count > QUIET_PLIES) {
+            return DRAW;
+        } else if (REPETITIONS > 0 && repetitions(key) >= REPETITIONS) {
+            return DRAW;
+        }
+        return 0;
+    }
+
+    public int[] getMoves() {
+        return moves;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int quietPlies() {
+        return count - 1;
+    }
+
+    public int quietPliesLeft() {
+        return QUIET_PLIES > 0 ? QUIET_PLIES - quietPlies() : Integer.MAX_VALUE;
+    }
+
+    private int repetitions(long key) {
+        int seen = 0;
+        for (int i = count - 1; i >= 0; i -= 2) {
+            if (keys[i] == key) {
+                seen++;
+            }
+        }
+        return seen;
+    }
+}
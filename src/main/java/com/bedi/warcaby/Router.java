@@ -0,0 +1,377 @@
+package com.bedi.warcaby;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+public class Router {
+    private static final int REPLICAS = 64;
+    private static final double LOAD_FACTOR = 1.25;
+    private static final int HANDSHAKE_TIMEOUT = 10_000;
+    private static final int PROBE_TIMEOUT = 500;
+    private static final int MAX_HANDSHAKE_LENGTH = 256;
+    private static final int MAX_SESSIONS = 100_000;
+    private static final long POLL_MILLIS = Long.getLong("warcaby.router.pollMillis", 1000);
+
+    private final ServerSocket serverSocket;
+    private final List<Backend> backends;
+    private final ThreadFactory threadFactory;
+    private final HashRing<Backend> ring = new HashRing<>(REPLICAS);
+    private final Map<Long, Backend> sessions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Backend> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    });
+    private Backend pairing = null;
+
+    private record Upstream(Socket socket, InputStream input) {
+    }
+
+    public Router(ServerSocket serverSocket, List<Backend> backends, ThreadFactory threadFactory) {
+        this.serverSocket = serverSocket;
+        this.backends = backends;
+        this.threadFactory = threadFactory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        List<Backend> backends = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            backends.add(Backend.parse(args[i]));
+        }
+        new Router(new ServerSocket(port, 4096), backends, Threads.factory(false)).run();
+    }
+
+    public void run() {
+        pollBackends();
+        Thread poller = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Thread.sleep(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                pollBackends();
+            }
+        }, "router-poller");
+        poller.setDaemon(true);
+        poller.start();
+
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                threadFactory.newThread(() -> handle(client)).start();
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    private void pollBackends() {
+        for (Backend backend : backends) {
+            boolean wasUp = backend.isUp();
+            if (backend.poll() != wasUp) {
+                if (backend.isUp()) {
+                    ring.add(backend);
+                    Log.info("Backend " + backend + " is up");
+                } else {
+                    ring.remove(backend);
+                    Log.warn("Backend " + backend + " is down");
+                }
+            }
+        }
+    }
+
+    public Backend place(long key) {
+        List<Backend> nodes = ring.walk(key);
+        if (nodes.isEmpty()) {
+            return null;
+        }
+
+        long total = 0;
+        for (Backend node : nodes) {
+            total += node.load();
+        }
+        double limit = Math.ceil(LOAD_FACTOR * (total + 1) / nodes.size());
+        for (Backend node : nodes) {
+            if (node.load() + 1 <= limit) {
+                return node;
+            }
+        }
+        return nodes.get(0);
+    }
+
+    private synchronized Backend pair(long key) {
+        if (pairing != null && pairing.isUp()) {
+            Backend backend = pairing;
+            pairing = null;
+            return backend;
+        }
+        pairing = place(key);
+        if (pairing != null) {
+            pairing.placed();
+        }
+        return pairing;
+    }
+
+    private void handle(Socket client) {
+        Upstream upstream = null;
+        try {
+            SocketOptions.apply(client);
+            client.setSoTimeout(HANDSHAKE_TIMEOUT);
+            InputStream clientInput = new BufferedInputStream(client.getInputStream());
+            OutputStream clientOutput = client.getOutputStream();
+            String line = readLine(clientInput);
+            client.setSoTimeout(0);
+            if (line == null) {
+                return;
+            }
+
+            Handshake handshake = Handshake.parse(line);
+            if (handshake.isStats()) {
+                clientOutput.write((describe() + "\n").getBytes(StandardCharsets.US_ASCII));
+                return;
+            } else if (handshake.isList()) {
+                clientOutput.write((list() + "\n").getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+
+            byte[] request = (line + "\n").getBytes(StandardCharsets.US_ASCII);
+            if (handshake.isResume()) {
+                upstream = resume(handshake.token(), request);
+            } else if (handshake.isWatch()) {
+                upstream = watch(handshake);
+            } else {
+                upstream = place(handshake, clientKey(client), request, clientOutput);
+            }
+            if (upstream == null) {
+                return;
+            }
+
+            Socket backendSocket = upstream.socket();
+            threadFactory.newThread(() -> {
+                try {
+                    pump(clientInput, backendSocket.getOutputStream());
+                } catch (IOException ignored) {
+                } finally {
+                    closeQuietly(backendSocket);
+                    closeQuietly(client);
+                }
+            }).start();
+            pump(upstream.input(), clientOutput);
+        } catch (IOException ignored) {
+        } finally {
+            if (upstream != null) {
+                closeQuietly(upstream.socket());
+            }
+            closeQuietly(client);
+        }
+    }
+
+    private static long clientKey(Socket client) {
+        long key = 0;
+        for (byte b : client.getInetAddress().getAddress()) {
+            key = key * 31 + (b & 0xFF);
+        }
+        return key;
+    }
+
+    private Upstream place(Handshake handshake, long key, byte[] request, OutputStream clientOutput) throws IOException {
+        Backend backend;
+        if (handshake.isWait()) {
+            backend = pair(key);
+        } else {
+            backend = place(key);
+            if (backend != null) {
+                backend.placed();
+            }
+        }
+        if (backend == null) {
+            return null;
+        }
+        Socket socket = backend.connect();
+        try {
+            socket.getOutputStream().write(request);
+            Upstream upstream = new Upstream(socket, new BufferedInputStream(socket.getInputStream()));
+            if (handshake.session()) {
+                remember(backend, upstream.input(), clientOutput, handshake.binary());
+            }
+            return upstream;
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    private String list() {
+        StringBuilder builder = new StringBuilder("MATCHES");
+        for (int i = 0; i < backends.size(); i++) {
+            Backend backend = backends.get(i);
+            String line = backend.isUp() ? backend.request("list") : null;
+            if (line == null || !line.startsWith("MATCHES")) {
+                continue;
+            }
+            for (String id : line.substring("MATCHES".length()).trim().split(" ")) {
+                if (!id.isEmpty()) {
+                    builder.append(' ').append(Long.parseLong(id) * backends.size() + i);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private Upstream watch(Handshake handshake) throws IOException {
+        long id = handshake.matchId();
+        if (id < 0 || backends.isEmpty()) {
+            return null;
+        }
+        Backend backend = backends.get((int) (id % backends.size()));
+        if (!backend.isUp()) {
+            return null;
+        }
+        Handshake forwarded = new Handshake(handshake.mode(), String.valueOf(id / backends.size()), handshake.binary(),
+                handshake.session(), handshake.clock(), handshake.sync());
+        Socket socket = backend.connect();
+        try {
+            socket.getOutputStream().write((forwarded + "\n").getBytes(StandardCharsets.US_ASCII));
+            return new Upstream(socket, new BufferedInputStream(socket.getInputStream()));
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    private Upstream resume(long token, byte[] request) {
+        Backend known = sessions.get(token);
+        List<Backend> candidates = known != null && known.isUp() ? List.of(known) : ring.walk(token);
+        for (Backend backend : candidates) {
+            Socket socket = null;
+            try {
+                socket = backend.connect();
+                socket.getOutputStream().write(request);
+                PushbackInputStream input = new PushbackInputStream(socket.getInputStream());
+                if (backend != known && !probe(socket, input)) {
+                    closeQuietly(socket);
+                    continue;
+                }
+                sessions.put(token, backend);
+                return new Upstream(socket, input);
+            } catch (IOException e) {
+                closeQuietly(socket);
+            }
+        }
+        return null;
+    }
+
+    private static boolean probe(Socket socket, PushbackInputStream input) throws IOException {
+        socket.setSoTimeout(PROBE_TIMEOUT);
+        try {
+            int first = input.read();
+            if (first < 0) {
+                return false;
+            }
+            input.unread(first);
+        } catch (SocketTimeoutException waitingForOpponent) {
+        } finally {
+            socket.setSoTimeout(0);
+        }
+        return true;
+    }
+
+    private void remember(Backend backend, InputStream upstream, OutputStream client, boolean binary) throws IOException {
+        byte[] greeting = new byte[2 + 1 + Long.BYTES];
+        int length = 0;
+        if (binary) {
+            while (length < greeting.length) {
+                int b = upstream.read();
+                if (b < 0) {
+                    throw new IOException("Backend closed");
+                }
+                greeting[length++] = (byte) b;
+            }
+            if (greeting[2] == BinaryCodec.SESSION) {
+                long token = 0;
+                for (int i = 3; i < greeting.length; i++) {
+                    token = token << 8 | (greeting[i] & 0xFF);
+                }
+                sessions.put(token, backend);
+            }
+            client.write(greeting);
+            return;
+        }
+
+        String player = readLine(upstream);
+        String session = readLine(upstream);
+        if (player == null || session == null) {
+            throw new IOException("Backend closed");
+        }
+        if (session.startsWith(Coder.SESSION)) {
+            sessions.put(Coder.decodeToken(session.substring(Coder.SESSION.length() + 1)), backend);
+        }
+        client.write((player + "\n" + session + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String readLine(InputStream inputStream) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = inputStream.read()) != '\n') {
+            if (c == -1) {
+                return null;
+            }
+            if (line.length() >= MAX_HANDSHAKE_LENGTH) {
+                throw new IOException("Line too long");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void pump(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            outputStream.write(buffer, 0, read);
+        }
+    }
+
+    public String describe() {
+        StringBuilder builder = new StringBuilder("router");
+        for (Backend backend : backends) {
+            builder.append(" | ").append(backend).append(backend.isUp() ? " up " : " down ").append(backend.load());
+        }
+        return builder.toString();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
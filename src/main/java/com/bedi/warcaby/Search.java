@@ -0,0 +1,259 @@
+package com.bedi.warcaby;
+
+import java.util.Arrays;
+
+public class Search {
+    public static final long DEFAULT_TIME_BUDGET = Long.getLong("warcaby.ai.millis", 50);
+    public static final int DEFAULT_MAX_DEPTH = Integer.getInteger("warcaby.ai.depth", 32);
+
+    private static final int MAX_PLY = 64;
+    private static final int INFINITY = 1_000_000;
+    private static final int WIN = 100_000;
+    private static final int MAN = 100;
+    private static final int KING = 160;
+    private static final int ADVANCE = 3;
+    private static final int NODES_BETWEEN_CLOCK_CHECKS = 256;
+
+    private final long timeBudgetNanos;
+    private final int maxDepth;
+    private final TranspositionTable table;
+
+    private final Board[] boards = new Board[MAX_PLY + 1];
+    private final int[][] moves = new int[MAX_PLY + 1][Board.MAX_MOVES];
+    private final int[] killers = new int[MAX_PLY + 1];
+
+    private long deadline;
+    private boolean stopped;
+    private volatile boolean aborted;
+    private long nodes;
+    private long probes;
+    private long hits;
+
+    public Search() {
+        this(DEFAULT_TIME_BUDGET, DEFAULT_MAX_DEPTH, TranspositionTable.shared());
+    }
+
+    public Search(long timeBudgetMillis, int maxDepth, TranspositionTable table) {
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000;
+        this.maxDepth = Math.min(maxDepth, MAX_PLY);
+        this.table = table;
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new Board();
+        }
+    }
+
+    public long getTimeBudgetNanos() {
+        return timeBudgetNanos;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void stop() {
+        aborted = true;
+    }
+
+    public void reset() {
+        aborted = false;
+    }
+
+    public int bestMove(Board board, boolean grayToMove) {
+        return bestMove(board, grayToMove, 1, maxDepth);
+    }
+
+    public int bestMove(Board board, boolean grayToMove, int firstDepth, int lastDepth) {
+        return bestMove(board, grayToMove, firstDepth, lastDepth, System.nanoTime() + timeBudgetNanos);
+    }
+
+    public int bestMove(Board board, boolean grayToMove, int firstDepth, int lastDepth, long deadline) {
+        this.deadline = deadline;
+        stopped = false;
+        nodes = 0;
+        probes = 0;
+        hits = 0;
+        Arrays.fill(killers, -1);
+
+        boards[0].set(board);
+        int[] rootMoves = moves[0];
+        int count = boards[0].generateMoves(grayToMove, rootMoves);
+        if (count == 0) {
+            return -1;
+        }
+
+        int best = rootMoves[0];
+        for (int depth = firstDepth; depth <= Math.min(lastDepth, maxDepth) && count > 1; depth++) {
+            order(rootMoves, count, best, -1);
+            int alpha = -INFINITY;
+            int iterationBest = -1;
+
+            for (int i = 0; i < count; i++) {
+                boards[1].set(boards[0]);
+                boards[1].makeMove(rootMoves[i]);
+                int score = -negamax(1, !grayToMove, depth - 1, -INFINITY, -alpha);
+                if (stopped) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = rootMoves[i];
+                }
+            }
+
+            if (stopped) {
+                break;
+            }
+            best = iterationBest;
+            if (Math.abs(alpha) >= WIN - MAX_PLY) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    private int negamax(int ply, boolean grayToMove, int depth, int alpha, int beta) {
+        if (++nodes % NODES_BETWEEN_CLOCK_CHECKS == 0 && (aborted || System.nanoTime() > deadline)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        Board board = boards[ply];
+        if ((grayToMove ? board.grayPieces() : board.whitePieces()) == 0) {
+            return -WIN + ply;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return evaluate(board, grayToMove);
+        }
+
+        long key = Zobrist.position(board, grayToMove);
+        int tableMove = -1;
+        if (table != null) {
+            probes++;
+            long entry = table.probe(key);
+            if (entry != 0) {
+                hits++;
+                tableMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int flag = TranspositionTable.flag(entry);
+                    if (flag == TranspositionTable.EXACT
+                            || (flag == TranspositionTable.LOWER && score >= beta)
+                            || (flag == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        int[] plyMoves = moves[ply];
+        int count = board.generateMoves(grayToMove, plyMoves);
+        if (count == 0) {
+            return -WIN + ply;
+        }
+        order(plyMoves, count, tableMove, killers[ply]);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            boards[ply + 1].set(board);
+            boards[ply + 1].makeMove(plyMoves[i]);
+            int score = -negamax(ply + 1, !grayToMove, depth - 1, -beta, -alpha);
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = plyMoves[i];
+            }
+            if (score >= beta) {
+                if (!Move.isKill(plyMoves[i])) {
+                    killers[ply] = plyMoves[i];
+                }
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+
+        if (table != null) {
+            int flag = bestScore >= beta ? TranspositionTable.LOWER : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(key, bestMove, toTable(bestScore, ply), depth, flag);
+        }
+        return bestScore;
+    }
+
+    private static int toTable(int score, int ply) {
+        if (score >= WIN - MAX_PLY) {
+            return score + ply;
+        } else if (score <= -WIN + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN - MAX_PLY) {
+            return score - ply;
+        } else if (score <= -WIN + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static void order(int[] moves, int count, int first, int killer) {
+        int next = 0;
+        next = bringForward(moves, count, next, first);
+        for (int i = next; i < count; i++) {
+            if (Move.isKill(moves[i])) {
+                swap(moves, i, next++);
+            }
+        }
+        bringForward(moves, count, next, killer);
+    }
+
+    private static int bringForward(int[] moves, int count, int next, int move) {
+        for (int i = next; i < count; i++) {
+            if (moves[i] == move) {
+                swap(moves, i, next);
+                return next + 1;
+            }
+        }
+        return next;
+    }
+
+    private static void swap(int[] moves, int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    public static int evaluate(Board board, boolean grayToMove) {
+        int gray = board.getGray();
+        int white = board.getWhite();
+        int kings = board.getKings();
+
+        int score = MAN * (Integer.bitCount(gray & ~kings) - Integer.bitCount(white & ~kings))
+                + KING * (Integer.bitCount(gray & kings) - Integer.bitCount(white & kings));
+        for (int y = 0; y < Board.HEIGHT; y++) {
+            int row = 0xF << (y * 4);
+            score += ADVANCE * (y * Integer.bitCount(gray & ~kings & row) - (Board.HEIGHT - 1 - y) * Integer.bitCount(white & ~kings & row));
+        }
+        return grayToMove ? score : -score;
+    }
+}
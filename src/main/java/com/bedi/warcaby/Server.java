@@ -1,44 +1,48 @@
 package com.bedi.warcaby;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ThreadFactory;
+
+public record Server(ServerSocket serverSocket, ThreadFactory threadFactory) {
+    public static final int PORT = Integer.getInteger("warcaby.port", 1234);
+    private static final Integer METRICS_PORT = Integer.getInteger("warcaby.metrics.port");
 
-public record Server(ServerSocket serverSocket) {
     public static void main(String[] args) throws IOException {
-        ServerSocket serverSocket = new ServerSocket(1234);
-        Server server = new Server(serverSocket);
+        if (METRICS_PORT != null) {
+            MetricsServer.start(METRICS_PORT);
+        }
+
+        if (args.length > 0 && args[0].equals("nio")) {
+            ServerSocketChannel serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(PORT), 4096);
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            new NioServer(serverChannel, threads).run();
+            return;
+        }
+
+        boolean virtual = args.length > 0 && args[0].equals("virtual");
+        if (virtual) {
+            ServerStats.watchPinning();
+        }
+
+        ServerSocket serverSocket = new ServerSocket(PORT);
+        Server server = new Server(serverSocket, Threads.factory(virtual));
         server.startServer();
     }
 
     public void startServer() {
+        Matchmaker matchmaker = new Matchmaker(threadFactory);
         while (! serverSocket.isClosed()) {
             try {
-                Socket socket1 = getSocket();
-                Socket socket2 = getSocket();
-
-                ClientHandler clientHandler = new ClientHandler(socket1, socket2);
-                Thread thread = new Thread(clientHandler);
-                thread.start();
+                matchmaker.accepted(serverSocket.accept());
             } catch (IOException e) {
                 closeServerSocket();
             }
         }
-    }
-
-    private Socket getSocket() throws IOException {
-        Socket socket = null;
-        while (socket == null) {
-            socket = serverSocket.accept();
-            if (new BufferedReader(new InputStreamReader(socket.getInputStream())).readLine().startsWith("wait")) {
-                break;
-            } else {
-                ClientHandler clientHandler = new ClientHandler(socket, null);
-                Thread thread = new Thread(clientHandler);
-                thread.start();
-            }
-        }
-        return socket;
+        matchmaker.close();
     }
 
     public void closeServerSocket() {
@@ -0,0 +1,189 @@
+package com.bedi.warcaby;
+
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ServerStats {
+    private static final AtomicInteger liveMatches = new AtomicInteger();
+    private static final AtomicInteger waitingPlayers = new AtomicInteger();
+    private static final AtomicInteger parkedMatches = new AtomicInteger();
+    private static final AtomicInteger spectators = new AtomicInteger();
+    private static final LongAdder spectatorsLagged = new LongAdder();
+    private static final LongAdder roomTasks = new LongAdder();
+    private static final LongAdder roomBatches = new LongAdder();
+    private static final LongAdder pinnedThreads = new LongAdder();
+    private static final LongAdder moves = new LongAdder();
+    private static final LongAdder outboundMessages = new LongAdder();
+    private static final LongAdder rejectedMoves = new LongAdder();
+    private static final LongAdder randomRetries = new LongAdder();
+    private static final LongAdder bookMoves = new LongAdder();
+    private static final LongAdder endgameMoves = new LongAdder();
+    private static final LatencyHistogram handshakeLatency = new LatencyHistogram();
+    private static final LatencyHistogram pairingLatency = new LatencyHistogram();
+    private static final LatencyHistogram firstPingLatency = new LatencyHistogram();
+    private static final LatencyHistogram validationLatency = new LatencyHistogram();
+    private static final LatencyHistogram writeLatency = new LatencyHistogram();
+    private static final LatencyHistogram matchDuration = new LatencyHistogram();
+
+    public static long matchStarted() {
+        liveMatches.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public static void matchFinished(long startedAt) {
+        liveMatches.decrementAndGet();
+        matchDuration.record(System.nanoTime() - startedAt);
+    }
+
+    public static int liveMatches() {
+        return liveMatches.get();
+    }
+
+    public static void waiting(int delta) {
+        waitingPlayers.addAndGet(delta);
+    }
+
+    public static int waitingPlayers() {
+        return waitingPlayers.get();
+    }
+
+    public static void parked(int delta) {
+        parkedMatches.addAndGet(delta);
+    }
+
+    public static int parkedMatches() {
+        return parkedMatches.get();
+    }
+
+    public static void spectators(int delta) {
+        spectators.addAndGet(delta);
+    }
+
+    public static int spectators() {
+        return spectators.get();
+    }
+
+    public static void spectatorLagged() {
+        spectatorsLagged.increment();
+    }
+
+    public static void roomBatch(int tasks) {
+        roomBatches.increment();
+        roomTasks.add(tasks);
+    }
+
+    public static void roomTasks(int tasks) {
+        roomTasks.add(tasks);
+    }
+
+    public static void moveProcessed(boolean accepted, long validationNanos) {
+        moves.increment();
+        if (!accepted) {
+            rejectedMoves.increment();
+        }
+        validationLatency.record(validationNanos);
+    }
+
+    public static void randomRetry() {
+        randomRetries.increment();
+    }
+
+    public static void bookMove() {
+        bookMoves.increment();
+    }
+
+    public static void endgameMove() {
+        endgameMoves.increment();
+    }
+
+    public static void queued() {
+        outboundMessages.increment();
+    }
+
+    public static void written(long startedAt) {
+        writeLatency.record(System.nanoTime() - startedAt);
+    }
+
+    public static long pinnedThreads() {
+        return pinnedThreads.sum();
+    }
+
+    public static LatencyHistogram handshakeLatency() {
+        return handshakeLatency;
+    }
+
+    public static LatencyHistogram pairingLatency() {
+        return pairingLatency;
+    }
+
+    public static LatencyHistogram firstPingLatency() {
+        return firstPingLatency;
+    }
+
+    public static void watchPinning() {
+        RecordingStream stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+        stream.onEvent("jdk.VirtualThreadPinned", event -> pinnedThreads.increment());
+        stream.startAsync();
+    }
+
+    public static String describe() {
+        return "matches " + liveMatches() + " pinned " + pinnedThreads()
+                + " | handshake " + handshakeLatency.describe()
+                + " | paired " + pairingLatency.describe()
+                + " | first ping " + firstPingLatency.describe();
+    }
+
+    public static String metrics() {
+        StringBuilder builder = new StringBuilder();
+        gauge(builder, "warcaby_matches_active", liveMatches());
+        gauge(builder, "warcaby_players_waiting", waitingPlayers());
+        gauge(builder, "warcaby_matches_parked", parkedMatches());
+        gauge(builder, "warcaby_spectators", spectators());
+        counter(builder, "warcaby_moves_total", moves.sum());
+        counter(builder, "warcaby_moves_rejected_total", rejectedMoves.sum());
+        counter(builder, "warcaby_outbound_messages_total", outboundMessages.sum());
+        counter(builder, "warcaby_ai_random_retries_total", randomRetries.sum());
+        counter(builder, "warcaby_ai_book_moves_total", bookMoves.sum());
+        counter(builder, "warcaby_ai_endgame_moves_total", endgameMoves.sum());
+        counter(builder, "warcaby_spectators_lagged_total", spectatorsLagged.sum());
+        counter(builder, "warcaby_room_tasks_total", roomTasks.sum());
+        counter(builder, "warcaby_room_batches_total", roomBatches.sum());
+        counter(builder, "warcaby_virtual_threads_pinned_total", pinnedThreads());
+        counter(builder, "warcaby_log_dropped_total", Log.dropped());
+        histogram(builder, "warcaby_handshake_seconds", handshakeLatency);
+        histogram(builder, "warcaby_pairing_seconds", pairingLatency);
+        histogram(builder, "warcaby_first_ping_seconds", firstPingLatency);
+        histogram(builder, "warcaby_move_validation_seconds", validationLatency);
+        histogram(builder, "warcaby_socket_write_seconds", writeLatency);
+        histogram(builder, "warcaby_match_duration_seconds", matchDuration);
+        return builder.toString();
+    }
+
+    private static void gauge(StringBuilder builder, String name, long value) {
+        builder.append("# TYPE ").append(name).append(" gauge\n");
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder builder, String name, long value) {
+        builder.append("# TYPE ").append(name).append(" counter\n");
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder builder, String name, LatencyHistogram histogram) {
+        builder.append("# TYPE ").append(name).append(" summary\n");
+        for (String quantile : new String[]{"0.5", "0.9", "0.99", "1"}) {
+            builder.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(histogram.percentile(Double.parseDouble(quantile) * 100))).append('\n');
+        }
+        builder.append(name).append("_sum ").append(seconds(histogram.sum())).append('\n');
+        builder.append(name).append("_count ").append(histogram.count()).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.valueOf(nanos / 1e9);
+    }
+}
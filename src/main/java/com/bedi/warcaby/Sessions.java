@@ -0,0 +1,65 @@
+package com.bedi.warcaby;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+public class Sessions<C> {
+    private static final long GRACE_MILLIS = Long.getLong("warcaby.session.graceSeconds", 30) * 1000;
+
+    private final Map<Long, ParkedMatch<C>> parked = new ConcurrentHashMap<>();
+    private final Consumer<C> closer;
+
+    public Sessions(Consumer<C> closer) {
+        this.closer = closer;
+    }
+
+    public ParkedMatch<C> park(Match match) {
+        ParkedMatch<C> parkedMatch = new ParkedMatch<>(match);
+        for (int player = 1; player <= 2; player++) {
+            if (match.isHuman(player)) {
+                parked.put(match.getToken(player), parkedMatch);
+            }
+        }
+        ServerStats.parked(1);
+        TimingWheel.shared().schedule(() -> expire(parkedMatch), GRACE_MILLIS);
+        return parkedMatch;
+    }
+
+    public ParkedMatch<C> find(long token) {
+        return parked.get(token);
+    }
+
+    public boolean unpark(ParkedMatch<C> parkedMatch) {
+        boolean removed = false;
+        Match match = parkedMatch.getMatch();
+        for (int player = 1; player <= 2; player++) {
+            if (match.isHuman(player)) {
+                removed |= parked.remove(match.getToken(player), parkedMatch);
+            }
+        }
+        if (removed) {
+            ServerStats.parked(-1);
+        }
+        return removed;
+    }
+
+    private void expire(ParkedMatch<C> parkedMatch) {
+        synchronized (parkedMatch) {
+            if (!unpark(parkedMatch)) {
+                return;
+            }
+        }
+        for (int player = 1; player <= 2; player++) {
+            C connection = parkedMatch.getPlayer(player);
+            if (connection != null) {
+                closer.accept(connection);
+            }
+        }
+        parkedMatch.getMatch().abandon();
+    }
+
+    public int size() {
+        return parked.size();
+    }
+}
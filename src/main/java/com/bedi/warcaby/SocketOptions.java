@@ -0,0 +1,32 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+
+public class SocketOptions {
+    private static final boolean NO_DELAY = !"false".equals(System.getProperty("warcaby.socket.noDelay"));
+    private static final int SEND_BUFFER = Integer.getInteger("warcaby.socket.sendBuffer", 0);
+    private static final int RECEIVE_BUFFER = Integer.getInteger("warcaby.socket.receiveBuffer", 0);
+
+    public static void apply(Socket socket) throws IOException {
+        socket.setTcpNoDelay(NO_DELAY);
+        if (SEND_BUFFER > 0) {
+            socket.setSendBufferSize(SEND_BUFFER);
+        }
+        if (RECEIVE_BUFFER > 0) {
+            socket.setReceiveBufferSize(RECEIVE_BUFFER);
+        }
+    }
+
+    public static void apply(SocketChannel channel) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, NO_DELAY);
+        if (SEND_BUFFER > 0) {
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER);
+        }
+        if (RECEIVE_BUFFER > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, RECEIVE_BUFFER);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class SpectatorConnection implements Broadcast.Subscriber, Runnable {
+    private static final int QUEUE_CAPACITY = Integer.getInteger("warcaby.spectator.queue", 64);
+    private static final byte[] FINISHED = new byte[0];
+
+    private final PlayerConnection connection;
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    public SpectatorConnection(PlayerConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public boolean isBinary() {
+        return connection.getHandshake().binary();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !connection.isClosed();
+    }
+
+    @Override
+    public boolean offer(byte[] frame) {
+        return queue.offer(frame);
+    }
+
+    @Override
+    public void finish() {
+        if (!queue.offer(FINISHED)) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                byte[] frame = queue.take();
+                if (frame == FINISHED) {
+                    break;
+                }
+                long startedAt = System.nanoTime();
+                connection.write(frame);
+                if (queue.isEmpty()) {
+                    connection.flush();
+                }
+                ServerStats.written(startedAt);
+            }
+            connection.flush();
+        } catch (IOException | InterruptedException ignored) {
+        } finally {
+            connection.close();
+        }
+    }
+}
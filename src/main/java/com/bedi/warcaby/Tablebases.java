@@ -0,0 +1,75 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public class Tablebases {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: Tablebases endgame <file> [pieces] | book <file> [plies] [depth]");
+            return;
+        }
+        Path path = Path.of(args[1]);
+        boolean verified = switch (args[0]) {
+            case "endgame" -> endgame(path, args.length > 2 ? Integer.parseInt(args[2]) : 3);
+            case "book" -> book(path, args.length > 2 ? Integer.parseInt(args[2]) : 6, args.length > 3 ? Integer.parseInt(args[3]) : 8);
+            default -> throw new IllegalArgumentException("Unknown table " + args[0]);
+        };
+        System.exit(verified ? 0 : 1);
+    }
+
+    private static boolean endgame(Path path, int pieces) throws IOException {
+        long start = System.nanoTime();
+        EndgameGenerator generator = new EndgameGenerator(pieces);
+        int longest = generator.solve();
+        int stored = generator.write(path);
+        System.out.printf("Solved %d index slots up to %d pieces in %.1f s, longest win %d plies, %d decided positions written%n",
+                generator.positions(), pieces, (System.nanoTime() - start) / 1e9, longest, stored);
+
+        Endgame endgame = new Endgame(PositionTable.open(path));
+        int errors = generator.verify(endgame);
+        errors += expect(endgame, "capture of the last piece", bit(1, 2), bit(2, 3), 0, true, Endgame.win(1));
+        errors += expect(endgame, "capture back of the last piece", bit(1, 2), bit(2, 3), 0, false, Endgame.win(1));
+        errors += expect(endgame, "blocked man", bit(0, 5), bit(1, 6) | bit(2, 7), bit(2, 7), true, Endgame.loss(0));
+        System.out.println(errors == 0 ? "Endgame table verified" : errors + " endgame mismatches");
+        return errors == 0;
+    }
+
+    private static int expect(Endgame endgame, String name, int gray, int white, int kings, boolean grayToMove, short expected) {
+        short value = endgame.probe(new Board(gray, white, kings), grayToMove);
+        if (value != expected) {
+            System.out.println(name + ": expected " + expected + ", got " + value);
+            return 1;
+        }
+        return 0;
+    }
+
+    private static int bit(int x, int y) {
+        return 1 << Board.square(x, y);
+    }
+
+    private static boolean book(Path path, int plies, int depth) throws IOException {
+        long start = System.nanoTime();
+        List<OpeningBook.Entry> entries = OpeningBook.build(plies, depth);
+        OpeningBook.write(path, entries, plies);
+        System.out.printf("Built %d book positions for %d plies at depth %d in %.1f s%n",
+                entries.size(), plies, depth, (System.nanoTime() - start) / 1e9);
+
+        OpeningBook book = new OpeningBook(PositionTable.open(path));
+        int errors = 0;
+        for (OpeningBook.Entry entry : entries) {
+            if (book.bestMove(entry.board(), entry.grayToMove()) != entry.move()) {
+                errors++;
+            }
+        }
+        List<OpeningBook.Entry> rebuilt = OpeningBook.build(plies, depth);
+        for (int i = 0; i < entries.size(); i++) {
+            if (rebuilt.size() != entries.size() || rebuilt.get(i).move() != entries.get(i).move()) {
+                errors++;
+            }
+        }
+        System.out.println(errors == 0 ? "Opening book verified" : errors + " book mismatches");
+        return errors == 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bedi.warcaby;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+public class Threads {
+    public static ThreadFactory factory(boolean virtual) {
+        if (!virtual) {
+            return Thread::new;
+        }
+        ThreadFactory factory = virtualFactory();
+        if (factory == null) {
+            Log.warn("Virtual threads need Java 21 or newer, using platform threads");
+            return Thread::new;
+        }
+        return factory;
+    }
+
+    private static ThreadFactory virtualFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.bedi.warcaby;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Tournament {
+    private static final int THREADS = Integer.getInteger("warcaby.tournament.threads", Runtime.getRuntime().availableProcessors());
+    private static final int MAX_PLIES = Integer.getInteger("warcaby.tournament.maxPlies", 400);
+    private static final int OPENING_PLIES = Integer.getInteger("warcaby.tournament.openingPlies", 4);
+    private static final long UNLIMITED = 3_600_000;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int CHUNK = 64;
+
+    public record Engine(String name, int depth) {
+        public static Engine parse(String text) {
+            if (text.equals("random")) {
+                return new Engine(text, 0);
+            } else if (text.startsWith("search:")) {
+                return new Engine(text, Integer.parseInt(text.substring("search:".length())));
+            }
+            throw new IllegalArgumentException("Unknown engine " + text + ", expected random or search:<depth>");
+        }
+
+        public boolean isRandom() {
+            return depth == 0;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public record Stats(LongAdder games, LongAdder firstWins, LongAdder secondWins, LongAdder draws,
+                        LongAdder grayWins, LongAdder whiteWins, LongAdder plies) {
+        public Stats() {
+            this(new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(),
+                    new LongAdder(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    private final Engine first;
+    private final Engine second;
+    private final long games;
+    private final long seed;
+    private final Journal journal;
+    private final long firstId;
+    private final Stats stats = new Stats();
+    private final AtomicLong next = new AtomicLong();
+
+    public Tournament(Engine first, Engine second, long games, long seed, Journal journal) {
+        this.first = first;
+        this.second = second;
+        this.games = games;
+        this.seed = seed;
+        this.journal = journal;
+        this.firstId = journal == null ? 0 : journal.nextMatchId();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long games = Long.parseLong(args[0]);
+        Engine first = Engine.parse(args.length > 1 ? args[1] : "random");
+        Engine second = Engine.parse(args.length > 2 ? args[2] : "random");
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        Journal journal = args.length > 4
+                ? new Journal(Paths.get(args[4]), Integer.getInteger("warcaby.journal.segmentMegabytes", 64) << 20, 1000)
+                : null;
+
+        Tournament tournament = new Tournament(first, second, games, seed, journal);
+        long start = System.nanoTime();
+        tournament.run(THREADS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (journal != null) {
+            journal.close();
+        }
+        System.out.println(tournament.describe(seconds));
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    public void run(int threads) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(new Worker(), "tournament-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    public String describe(double seconds) {
+        long played = stats.games().sum();
+        return String.format("%s vs %s: %d games in %.1f s, %.0f games/s | %s wins %d, draws %d, %s wins %d"
+                        + " | gray wins %d, white wins %d | average length %.1f plies",
+                first, second, played, seconds, played / seconds,
+                first, stats.firstWins().sum(), stats.draws().sum(), second, stats.secondWins().sum(),
+                stats.grayWins().sum(), stats.whiteWins().sum(), played == 0 ? 0 : (double) stats.plies().sum() / played);
+    }
+
+    private class Worker implements Runnable {
+        private final Board board = new Board();
+        private final Board start = new Board();
+        private final Referee referee = new Referee();
+        private final int[] record = new int[MAX_PLIES];
+        private final Search firstSearch = first.isRandom() ? null : new Search(UNLIMITED, first.depth(), null);
+        private final Search secondSearch = second.isRandom() ? null : new Search(UNLIMITED, second.depth(), null);
+
+        @Override
+        public void run() {
+            long index;
+            while ((index = next.getAndAdd(CHUNK)) < games) {
+                for (long game = index; game < Math.min(index + CHUNK, games); game++) {
+                    play(game);
+                }
+            }
+        }
+
+        private void play(long game) {
+            SplittableRandom random = new SplittableRandom(seed + game * GOLDEN_GAMMA);
+            boolean firstIsGray = game % 2 == 1;
+            board.set(start);
+            boolean grayToMove = false;
+            int plies = 0;
+            int winner = referee.start(board, grayToMove);
+            while (winner == 0) {
+                if (plies == MAX_PLIES) {
+                    winner = Referee.DRAW;
+                    break;
+                }
+
+                Search search = grayToMove == firstIsGray ? firstSearch : secondSearch;
+                int move = search == null || plies < OPENING_PLIES
+                        ? referee.getMoves()[random.nextInt(referee.getMoveCount())]
+                        : search.bestMove(board, grayToMove);
+                boolean irreversible = Referee.isIrreversible(board, move);
+                board.makeMove(move);
+                record[plies++] = move;
+                grayToMove = !grayToMove;
+                winner = referee.played(board, grayToMove, irreversible);
+            }
+
+            stats.games().increment();
+            stats.plies().add(plies);
+            if (winner == Referee.DRAW) {
+                stats.draws().increment();
+            } else {
+                (winner == 1 ? stats.grayWins() : stats.whiteWins()).increment();
+                ((winner == 1) == firstIsGray ? stats.firstWins() : stats.secondWins()).increment();
+            }
+            if (journal != null) {
+                journal.recorded(firstId + game, 0, record, plies, winner);
+            }
+        }
+    }
+}
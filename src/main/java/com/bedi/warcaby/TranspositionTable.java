@@ -0,0 +1,81 @@
+package com.bedi.warcaby;
+
+import java.util.Arrays;
+
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_LONGS = 2 * ENTRY_LONGS;
+    private static final int BUCKET_BYTES = BUCKET_LONGS * Long.BYTES;
+
+    private static TranspositionTable shared;
+
+    private final long[] table;
+    private final long mask;
+
+    public TranspositionTable(int megabytes) {
+        long buckets = Long.highestOneBit(Math.max(1, ((long) megabytes << 20) / BUCKET_BYTES));
+        buckets = Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / BUCKET_LONGS));
+        table = new long[(int) buckets * BUCKET_LONGS];
+        mask = buckets - 1;
+    }
+
+    public static synchronized TranspositionTable shared() {
+        if (shared == null) {
+            shared = new TranspositionTable(Integer.getInteger("warcaby.ai.tableMegabytes", 64));
+        }
+        return shared;
+    }
+
+    public long probe(long key) {
+        int bucket = (int) (key & mask) * BUCKET_LONGS;
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    public void store(long key, int move, int score, int depth, int flag) {
+        int bucket = (int) (key & mask) * BUCKET_LONGS;
+        long data = pack(move, score, depth, flag);
+
+        int slot = bucket + ENTRY_LONGS;
+        long deepest = table[bucket + 1];
+        if ((table[bucket] ^ deepest) == key || depth >= depth(deepest)) {
+            slot = bucket;
+        }
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    private static long pack(int move, int score, int depth, int flag) {
+        return (long) score << 32 | (long) (move & 0xFFFF) << 16 | (depth & 0xFF) << 8 | flag;
+    }
+
+    public static int move(long data) {
+        int move = (int) (data >>> 16 & 0xFFFF);
+        return move == 0xFFFF ? -1 : move;
+    }
+
+    public static int score(long data) {
+        return (int) (data >> 32);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 8 & 0xFF);
+    }
+
+    public static int flag(long data) {
+        return (int) (data & 0xFF);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bedi.warcaby;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+public class WriterChannel implements MatchChannel {
+    private final BufferedWriter bufferedWriter;
+    private final boolean sync;
+    private boolean pending = false;
+
+    public WriterChannel(BufferedWriter bufferedWriter, boolean sync) {
+        this.bufferedWriter = bufferedWriter;
+        this.sync = sync;
+    }
+
+    @Override
+    public void joined(int player) throws IOException {
+        send(String.valueOf(player));
+    }
+
+    @Override
+    public void ping() throws IOException {
+        send(Coder.PING);
+    }
+
+    @Override
+    public void moved(int fromX, int fromY, int newX, int newY, MoveType moveType, int sequence) throws IOException {
+        send(sync ? Coder.encode(fromX, fromY, newX, newY, moveType, sequence) : Coder.encode(fromX, fromY, newX, newY, moveType));
+    }
+
+    @Override
+    public void ended(int winner) throws IOException {
+        send(Coder.encodeEnd(winner));
+    }
+
+    @Override
+    public void session(long token) throws IOException {
+        send(Coder.encodeSession(token));
+    }
+
+    @Override
+    public void clock(int player, long moveMillis, long player1Millis, long player2Millis) throws IOException {
+        send(Coder.encodeClock(player, moveMillis, player1Millis, player2Millis));
+    }
+
+    @Override
+    public void snapshot(int gray, int white, int kings, int player, int moves) throws IOException {
+        if (sync) {
+            send(Coder.encodeSnapshot(gray, white, kings, player, moves));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!pending) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        bufferedWriter.flush();
+        ServerStats.written(startedAt);
+        pending = false;
+    }
+
+    private void send(String message) throws IOException {
+        bufferedWriter.write(message);
+        bufferedWriter.newLine();
+        ServerStats.queued();
+        pending = true;
+    }
+}
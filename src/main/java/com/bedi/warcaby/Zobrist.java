@@ -0,0 +1,36 @@
+package com.bedi.warcaby;
+
+import java.util.SplittableRandom;
+
+public class Zobrist {
+    public static final long GRAY_TO_MOVE;
+
+    private static final long[][] KEYS = new long[4][Board.SQUARES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0FFEEL);
+        for (long[] keys : KEYS) {
+            for (int square = 0; square < Board.SQUARES; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        GRAY_TO_MOVE = random.nextLong();
+    }
+
+    public static long key(boolean gray, boolean king, int square) {
+        return KEYS[(gray ? 0 : 2) + (king ? 1 : 0)][square];
+    }
+
+    public static long hash(int gray, int white, int kings) {
+        long hash = 0;
+        for (int pieces = gray | white; pieces != 0; pieces &= pieces - 1) {
+            int square = Integer.numberOfTrailingZeros(pieces);
+            hash ^= key((gray & (1 << square)) != 0, (kings & (1 << square)) != 0, square);
+        }
+        return hash;
+    }
+
+    public static long position(Board board, boolean grayToMove) {
+        return grayToMove ? board.getHash() ^ GRAY_TO_MOVE : board.getHash();
+    }
+}
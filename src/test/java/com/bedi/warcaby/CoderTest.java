@@ -0,0 +1,29 @@
+package com.bedi.warcaby;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CoderTest {
+    @Test
+    void decodesEndLinesWithoutSequence() {
+        assertEquals(1, Coder.decodeEnd(Coder.encodeEnd(1)));
+        assertEquals(2, Coder.decodeEnd(Coder.encodeEnd(2)));
+        assertEquals(Referee.DRAW, Coder.decodeEnd(Coder.encodeEnd(Referee.DRAW)));
+    }
+
+    @Test
+    void resultsAreNotEndLines() {
+        assertEquals(0, Coder.decodeEnd(Coder.encode(0, 5, 1, 4, MoveType.NORMAL, 1)));
+        assertEquals(0, Coder.decodeEnd(Coder.encode(0, 5, 2, 3, MoveType.KILL)));
+    }
+
+    @Test
+    void decodesSequenceWhenPresent() {
+        assertEquals(7, Coder.decodeSequence(Coder.encode(0, 5, 1, 4, MoveType.NORMAL, 7).split(" ")));
+        assertEquals(8, Coder.decodeSequence(Coder.encode(0, 5, 2, 3, MoveType.KILL, 8).split(" ")));
+        assertEquals(0, Coder.decodeSequence(Coder.encode(0, 5, 1, 4, MoveType.NONE, 0).split(" ")));
+        assertEquals(-1, Coder.decodeSequence(Coder.encode(0, 5, 1, 4, MoveType.NORMAL).split(" ")));
+        assertEquals(-1, Coder.decodeSequence(Coder.encode(0, 5, 2, 3, MoveType.KILL).split(" ")));
+    }
+}